@@ -37,6 +37,8 @@ import java.util.concurrent.TimeUnit;
 public class ManualTimeProvider implements TimeProvider
 {
     private long timestamp = -1L;
+    /** Any adjustment to the time finer than a millisecond, in nanoseconds. */
+    private long nanoAdjustment = 0L;
 
     /**
      * Set the current timestamp for the provider. This timestamp will be used for all future calls to
@@ -47,6 +49,7 @@ public class ManualTimeProvider implements TimeProvider
     public void setTimestamp(final long timestamp)
     {
         this.timestamp = timestamp;
+        this.nanoAdjustment = 0L;
     }
 
     /**
@@ -81,7 +84,11 @@ public class ManualTimeProvider implements TimeProvider
      */
     public void adjust(final long duration, final TimeUnit unit)
     {
-        this.setTimestamp(this.getTimestamp() + unit.toMillis(duration));
+        final long nanos = this.nanoAdjustment + unit.toNanos(duration);
+        final long base = this.getTimestamp();
+
+        this.setTimestamp(base + Math.floorDiv(nanos, 1_000_000L));
+        this.nanoAdjustment = Math.floorMod(nanos, 1_000_000L);
     }
 
     @Override
@@ -94,4 +101,16 @@ public class ManualTimeProvider implements TimeProvider
 
         return this.timestamp;
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The monotonic clock follows the timestamp exactly, but also includes any sub-millisecond adjustments made
+     * through {@link #adjust(long, TimeUnit)}.
+     */
+    @Override
+    public long getNanoTime()
+    {
+        return TimeUnit.MILLISECONDS.toNanos(this.getTimestamp()) + this.nanoAdjustment;
+    }
 }
@@ -23,7 +23,7 @@ import java.time.ZonedDateTime;
 
 /**
  * The {@link SystemTimeProvider} is a {@link TimeProvider} that exclusively provides the current system time,
- * accurate to the millisecond.
+ * accurate to the millisecond. Its monotonic clock is {@link System#nanoTime()}.
  *
  * @author jeff@mind-trick.net
  * @since 2018-01-01
@@ -36,6 +36,12 @@ public class SystemTimeProvider implements TimeProvider
         return System.currentTimeMillis();
     }
 
+    @Override
+    public long getNanoTime()
+    {
+        return System.nanoTime();
+    }
+
     @Override
     public ZonedDateTime now(final ZoneId zone)
     {
@@ -21,6 +21,7 @@ package io.zeropointx.time;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A {@link TimeProvider} is an abstraction for a number of common methods used to determine the current date or
@@ -43,6 +44,21 @@ public interface TimeProvider
      */
     long getTimestamp();
 
+    /**
+     * Fetch the current value of a monotonic clock, in nanoseconds. This matches the conventions used for
+     * {@link System#nanoTime()}: the value has no relation to the wall clock and is only meaningful when compared
+     * to another value from the same provider. Unlike {@link #getTimestamp()}, it should never move backwards.
+     * <p>
+     * The default implementation is derived from {@link #getTimestamp()}, so providers which control the passage of
+     * time will control this clock as well, though only to millisecond resolution.
+     *
+     * @return The current monotonic time, in nanoseconds.
+     */
+    default long getNanoTime()
+    {
+        return TimeUnit.MILLISECONDS.toNanos(this.getTimestamp());
+    }
+
     /**
      * Fetch the current date and time in the provided timezone specifier. The current time is based on the value
      * supplied by {@link #getTimestamp()}.
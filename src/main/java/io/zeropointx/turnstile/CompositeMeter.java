@@ -0,0 +1,215 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import io.zeropointx.time.DefaultTimeProvider;
+import io.zeropointx.time.TimeProvider;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link CompositeMeter} enforces several limits at once, such as "10 per second <em>and</em> 500 per minute
+ * <em>and</em> 10,000 per hour". Each limit is enforced by its own tier {@link Meter}. An event is delayed by the
+ * longest delay required by any tier, and is committed to every tier or to none of them, so a tier which rejects
+ * an event never wastes capacity in the others.
+ * <p>
+ * When built from {@link FlowRate}s, each tier is a {@link TokenBucketMeter} whose capacity is the volume of its
+ * rate. This allows each tier to absorb a burst up to its full volume, as long as the other tiers allow it.
+ * <p>
+ * Tiers must not be shared with any other {@link Turnstile} or {@link Meter}. All tiers are updated under the
+ * composite meter's own monitor, which is never held while an event is delayed, so the composite meter is
+ * concurrent.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class CompositeMeter extends Meter
+{
+    /** The meters enforcing each limit. */
+    private final List<Meter> tiers;
+
+    /**
+     * Create a new {@link CompositeMeter} from a set of tier meters.
+     *
+     * @param tiers The {@link Meter}s enforcing each limit.
+     */
+    public CompositeMeter(final Meter... tiers)
+    {
+        this(DefaultTimeProvider.getDefault(), ImmutableList.copyOf(tiers));
+    }
+
+    /**
+     * Create a new {@link CompositeMeter} with a {@link TokenBucketMeter} tier for each of the supplied rates.
+     *
+     * @param rates The {@link FlowRate}s to enforce.
+     */
+    public CompositeMeter(final FlowRate... rates)
+    {
+        this(ImmutableList.copyOf(rates), DefaultTimeProvider.getDefault());
+    }
+
+    /**
+     * Create a new {@link CompositeMeter} by parsing a comma-separated list of rates.
+     *
+     * @param ratesDescription A {@link String} describing the rates, such as {@code "10/s,500/m,10k/h"}.
+     * @see FlowRate#parseList(CharSequence)
+     */
+    public CompositeMeter(final CharSequence ratesDescription)
+    {
+        this(FlowRate.parseList(ratesDescription), DefaultTimeProvider.getDefault());
+    }
+
+    /**
+     * Create a new {@link CompositeMeter} with a {@link TokenBucketMeter} tier for each of the supplied rates,
+     * measuring time with the supplied {@link TimeProvider}.
+     *
+     * @param rates The {@link FlowRate}s to enforce.
+     * @param timeProvider The {@link TimeProvider} to use as the clock for every tier.
+     */
+    public CompositeMeter(final List<FlowRate> rates, final TimeProvider timeProvider)
+    {
+        this(timeProvider, rates.stream()
+                                .map(rate -> new TokenBucketMeter(rate,
+                                                                  (long)Math.max(1.0, Math.floor(rate.getVolume())),
+                                                                  timeProvider))
+                                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Create a new {@link CompositeMeter} from a set of tier meters.
+     *
+     * @param timeProvider The {@link TimeProvider} to use as the composite meter's clock.
+     * @param tiers The {@link Meter}s enforcing each limit.
+     */
+    private CompositeMeter(final TimeProvider timeProvider, final List<? extends Meter> tiers)
+    {
+        super(timeProvider);
+
+        Preconditions.checkArgument(!tiers.isEmpty(), "At least one tier is required.");
+
+        this.tiers = ImmutableList.copyOf(tiers);
+
+        this.reset();
+    }
+
+    /**
+     * Fetch the meters enforcing each limit.
+     *
+     * @return An unmodifiable {@link List} of {@link Meter}s.
+     */
+    public List<Meter> getTiers()
+    {
+        return this.tiers;
+    }
+
+    @Override
+    protected synchronized void reset()
+    {
+        super.reset();
+        this.tiers.forEach(Meter::reset);
+    }
+
+    @Override
+    protected synchronized void start()
+    {
+        super.start();
+        this.tiers.forEach(Meter::start);
+    }
+
+    @Override
+    protected synchronized void pause()
+    {
+        super.pause();
+        this.tiers.forEach(Meter::pause);
+    }
+
+    @Override
+    protected boolean isConcurrent()
+    {
+        return true;
+    }
+
+    @Override
+    protected long getDelayFor(final long eventCount)
+    {
+        return Meter.toMillis(this.getDelayNanosFor(eventCount));
+    }
+
+    @Override
+    protected long getDelayNanosFor(final long eventCount)
+    {
+        return this.getDelayNanosFor(eventCount, 1L);
+    }
+
+    @Override
+    protected synchronized long getDelayNanosFor(final long eventCount, final long permits)
+    {
+        long delay = Long.MIN_VALUE;
+        for (Meter tier : this.tiers)
+        {
+            delay = Math.max(delay, tier.getDelayNanosFor(eventCount, permits));
+        }
+
+        return delay;
+    }
+
+    @Override
+    protected long claim(final long eventCount)
+    {
+        return this.tryClaim(eventCount, 1L, Long.MAX_VALUE);
+    }
+
+    @Override
+    protected long claim(final long eventCount, final long permits)
+    {
+        return this.tryClaim(eventCount, permits, Long.MAX_VALUE);
+    }
+
+    @Override
+    protected synchronized void refund(final long eventCount, final long permits)
+    {
+        for (Meter tier : this.tiers)
+        {
+            tier.refund(eventCount, permits);
+        }
+    }
+
+    @Override
+    protected long tryClaim(final long eventCount, final long maxDelay)
+    {
+        return this.tryClaim(eventCount, 1L, maxDelay);
+    }
+
+    @Override
+    protected synchronized long tryClaim(final long eventCount, final long permits, final long maxDelay)
+    {
+        if (this.getDelayNanosFor(eventCount, permits) > maxDelay) return Meter.REJECTED;
+
+        long delay = Long.MIN_VALUE;
+        for (Meter tier : this.tiers)
+        {
+            delay = Math.max(delay, tier.claim(eventCount, permits));
+        }
+
+        return delay;
+    }
+}
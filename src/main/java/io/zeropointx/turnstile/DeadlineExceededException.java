@@ -0,0 +1,61 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import java.time.Duration;
+
+/**
+ * A {@link DeadlineExceededException} is thrown when an event is rejected by a {@link Turnstile} because it could
+ * not pass before its deadline. Some of the time before the deadline may have been spent waiting for other events
+ * to be admitted, but the rejected event consumes no capacity of the {@link Meter} and has no effect on the policy
+ * applied to later events.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class DeadlineExceededException extends Exception
+{
+    private static final long serialVersionUID = 1L;
+
+    /** The time that was left before the deadline when the event was rejected. */
+    private final Duration budget;
+
+    /**
+     * Create a new {@link DeadlineExceededException}.
+     *
+     * @param budget The time that was left before the deadline when the event was rejected.
+     */
+    public DeadlineExceededException(final Duration budget)
+    {
+        super("Event could not pass within " + budget + ".");
+
+        this.budget = budget;
+    }
+
+    /**
+     * Fetch the time that was left before the deadline when the event was rejected. This is negative if the
+     * deadline had already passed.
+     *
+     * @return The remaining time as a {@link Duration}.
+     */
+    public Duration getBudget()
+    {
+        return this.budget;
+    }
+}
@@ -0,0 +1,296 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link DelayHistogram} records the distribution of delays imposed on events. Delays are counted with
+ * microsecond precision in log-linear buckets: each power of two is split into {@value #SUB_BUCKETS} linear
+ * buckets, so every recorded value is accurate to within about 1.6% no matter its magnitude. Delays longer than
+ * about 71 minutes are counted as the largest trackable value.
+ * <p>
+ * The histogram uses a fixed amount of memory and recording a delay never allocates or blocks. Readers take a
+ * {@link Snapshot}, optionally resetting the histogram at the same time so that it can be exported periodically.
+ * Since a snapshot is taken one bucket at a time, delays recorded while it is being taken may be split between
+ * that snapshot and the next one; none are lost.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class DelayHistogram
+{
+    /** The number of linear buckets in each power of two. */
+    static final int SUB_BUCKETS = 64;
+    /** The largest delay that can be told apart from longer delays, in microseconds. */
+    static final long MAX_TRACKABLE = (1L << 32) - 1;
+
+    /** The number of bits needed to index the linear buckets of a power of two. */
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(DelayHistogram.SUB_BUCKETS);
+    /** The total number of buckets. */
+    private static final int BUCKET_COUNT = DelayHistogram.indexOf(DelayHistogram.MAX_TRACKABLE) + 1;
+
+    /** The number of delays recorded in each bucket. */
+    private final AtomicLongArray counts;
+    /** The sum of all recorded delays, in microseconds. */
+    private final AtomicLong sum;
+    /** The longest recorded delay, in microseconds. */
+    private final AtomicLong max;
+
+    /**
+     * Create a new, empty {@link DelayHistogram}.
+     */
+    public DelayHistogram()
+    {
+        super();
+
+        this.counts = new AtomicLongArray(DelayHistogram.BUCKET_COUNT);
+        this.sum = new AtomicLong(0L);
+        this.max = new AtomicLong(0L);
+    }
+
+    /**
+     * Record a single delay.
+     *
+     * @param delayNanos The length of the delay in nanoseconds. Negative delays are recorded as zero.
+     */
+    public void record(final long delayNanos)
+    {
+        final long micros = Math.min(DelayHistogram.MAX_TRACKABLE, Math.max(0L, delayNanos / 1_000L));
+
+        this.counts.incrementAndGet(DelayHistogram.indexOf(micros));
+        this.sum.addAndGet(micros);
+
+        long current = this.max.get();
+        while (micros > current && !this.max.compareAndSet(current, micros))
+        {
+            current = this.max.get();
+        }
+    }
+
+    /**
+     * Take a snapshot of the delays recorded so far, leaving the histogram untouched.
+     *
+     * @return A {@link Snapshot} of the histogram.
+     */
+    public Snapshot snapshot()
+    {
+        final long[] snapshot = new long[DelayHistogram.BUCKET_COUNT];
+        for (int i = 0; i < snapshot.length; i++)
+        {
+            snapshot[i] = this.counts.get(i);
+        }
+
+        return new Snapshot(snapshot, this.sum.get(), this.max.get());
+    }
+
+    /**
+     * Take a snapshot of the delays recorded so far, and reset the histogram so that it only records delays
+     * which occur after the snapshot.
+     *
+     * @return A {@link Snapshot} of the histogram.
+     */
+    public Snapshot snapshotAndReset()
+    {
+        final long[] snapshot = new long[DelayHistogram.BUCKET_COUNT];
+        for (int i = 0; i < snapshot.length; i++)
+        {
+            snapshot[i] = this.counts.getAndSet(i, 0L);
+        }
+
+        return new Snapshot(snapshot, this.sum.getAndSet(0L), this.max.getAndSet(0L));
+    }
+
+    /**
+     * Count the recorded delays at or below each of a set of bounds, without allocating or resetting the
+     * histogram. A bucket is only counted towards a bound if every value in it is at or below the bound.
+     *
+     * @param boundsNanos The bounds in nanoseconds, in ascending order.
+     * @param counts An array at least as long as the bounds, to receive the cumulative count for each bound.
+     * @return The total number of recorded delays.
+     */
+    long cumulativeCounts(final long[] boundsNanos, final long[] counts)
+    {
+        long total = 0;
+        int bound = 0;
+        for (int i = 0; i < DelayHistogram.BUCKET_COUNT; i++)
+        {
+            final long highest = TimeUnit.MICROSECONDS.toNanos(DelayHistogram.highestValueIn(i));
+            while (bound < boundsNanos.length && highest > boundsNanos[bound])
+            {
+                counts[bound++] = total;
+            }
+
+            total += this.counts.get(i);
+        }
+
+        while (bound < boundsNanos.length)
+        {
+            counts[bound++] = total;
+        }
+
+        return total;
+    }
+
+    /**
+     * Fetch the sum of all recorded delays, without taking a snapshot.
+     *
+     * @return The total delay in nanoseconds.
+     */
+    long getSum()
+    {
+        return TimeUnit.MICROSECONDS.toNanos(this.sum.get());
+    }
+
+    /**
+     * Find the bucket that a value is counted in. Values below {@code 2 * SUB_BUCKETS} each have their own bucket.
+     * Above that, each power of two is split into {@link #SUB_BUCKETS} buckets of equal width.
+     *
+     * @param micros The value, in microseconds.
+     * @return The index of the bucket.
+     */
+    private static int indexOf(final long micros)
+    {
+        if (micros < 2 * DelayHistogram.SUB_BUCKETS) return (int)micros;
+
+        final int shift = 63 - Long.numberOfLeadingZeros(micros) - DelayHistogram.SUB_BUCKET_BITS;
+        final int subBucket = (int)(micros >>> shift) - DelayHistogram.SUB_BUCKETS;
+
+        return (shift + 1) * DelayHistogram.SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Find the largest value counted in a bucket.
+     *
+     * @param index The index of the bucket.
+     * @return The largest value in the bucket, in microseconds.
+     */
+    private static long highestValueIn(final int index)
+    {
+        if (index < 2 * DelayHistogram.SUB_BUCKETS) return index;
+
+        final int shift = index / DelayHistogram.SUB_BUCKETS - 1;
+        final long subBucket = index % DelayHistogram.SUB_BUCKETS + DelayHistogram.SUB_BUCKETS;
+
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * A {@link Snapshot} is an immutable copy of the delays recorded by a {@link DelayHistogram} at a point in
+     * time. All values are reported in nanoseconds, but are only precise to the microsecond.
+     */
+    public static class Snapshot
+    {
+        /** The number of delays recorded in each bucket. */
+        private final long[] counts;
+        /** The total number of delays recorded. */
+        private final long count;
+        /** The sum of all recorded delays, in microseconds. */
+        private final long sum;
+        /** The longest recorded delay, in microseconds. */
+        private final long max;
+
+        private Snapshot(final long[] counts, final long sum, final long max)
+        {
+            super();
+
+            long total = 0;
+            for (final long bucket : counts) total += bucket;
+
+            this.counts = counts;
+            this.count = total;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Fetch the number of delays recorded.
+         *
+         * @return The number of delays.
+         */
+        public long getCount()
+        {
+            return this.count;
+        }
+
+        /**
+         * Fetch the sum of all recorded delays.
+         *
+         * @return The total delay in nanoseconds.
+         */
+        public long getSum()
+        {
+            return TimeUnit.MICROSECONDS.toNanos(this.sum);
+        }
+
+        /**
+         * Fetch the longest recorded delay.
+         *
+         * @return The longest delay in nanoseconds, or zero if no delays were recorded.
+         */
+        public long getMax()
+        {
+            return TimeUnit.MICROSECONDS.toNanos(this.max);
+        }
+
+        /**
+         * Fetch the average recorded delay.
+         *
+         * @return The mean delay in nanoseconds, or zero if no delays were recorded.
+         */
+        public double getMean()
+        {
+            if (this.count == 0) return 0.0;
+
+            return this.getSum() / (double)this.count;
+        }
+
+        /**
+         * Fetch the delay which the given percentage of recorded delays did not exceed. The value reported is the
+         * largest value counted in the same bucket, so it may overstate the true delay slightly, but never by
+         * more than the longest recorded delay.
+         *
+         * @param percentile The percentile to report, between zero and one hundred.
+         * @return The delay in nanoseconds, or zero if no delays were recorded.
+         */
+        public long getValueAtPercentile(final double percentile)
+        {
+            Preconditions.checkArgument(percentile >= 0.0 && percentile <= 100.0,
+                                        "Percentile must be between 0 and 100.");
+            if (this.count == 0) return 0L;
+
+            final long rank = Math.max(1L, (long)Math.ceil(this.count * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < this.counts.length; i++)
+            {
+                seen += this.counts[i];
+                if (seen >= rank)
+                {
+                    return TimeUnit.MICROSECONDS.toNanos(Math.min(DelayHistogram.highestValueIn(i), this.max));
+                }
+            }
+
+            return this.getMax();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import com.google.common.base.Preconditions;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * An {@link EventBuckets} counts events in a circular series of fixed-width time buckets. It can report exactly
+ * how many events were seen over any window up to its horizon, to the resolution of a single bucket, using a fixed
+ * amount of memory no matter how many events it counts. Recording an event is O(1).
+ * <p>
+ * Each bucket is tagged with the index of the period it counts, so that buckets left over from a previous lap of
+ * the circle are recognized as stale and ignored. This class is not thread safe.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+final class EventBuckets
+{
+    /** The width of each bucket, in milliseconds. */
+    private final long resolution;
+    /** The number of events counted in each bucket. */
+    private final long[] counts;
+    /** The index of the period each bucket is currently counting. */
+    private final long[] periods;
+
+    /**
+     * Create a new set of empty {@link EventBuckets}.
+     *
+     * @param horizon The longest window that counts should be kept for.
+     * @param resolution The width of each bucket.
+     */
+    EventBuckets(final Duration horizon, final Duration resolution)
+    {
+        super();
+
+        Preconditions.checkArgument(resolution.toMillis() > 0, "Bucket resolution must be at least a millisecond.");
+        Preconditions.checkArgument(horizon.compareTo(resolution) >= 0, "Horizon must be at least one bucket wide.");
+
+        this.resolution = resolution.toMillis();
+
+        // One extra bucket holds the partially elapsed current period
+        final int bucketCount = Math.toIntExact((horizon.toMillis() + this.resolution - 1) / this.resolution) + 1;
+        this.counts = new long[bucketCount];
+        this.periods = new long[bucketCount];
+        Arrays.fill(this.periods, Long.MIN_VALUE);
+    }
+
+    /**
+     * Fetch the longest window that counts are kept for.
+     *
+     * @return The horizon as a {@link Duration}.
+     */
+    Duration getHorizon()
+    {
+        return Duration.ofMillis((this.counts.length - 1) * this.resolution);
+    }
+
+    /**
+     * Fetch the width of each bucket.
+     *
+     * @return The resolution as a {@link Duration}.
+     */
+    Duration getResolution()
+    {
+        return Duration.ofMillis(this.resolution);
+    }
+
+    /**
+     * Count events seen at the supplied time. Events older than every bucket are ignored.
+     *
+     * @param eventTime The time the events were seen, in milliseconds.
+     * @param events The number of events to count.
+     */
+    void record(final long eventTime, final long events)
+    {
+        final long period = Math.floorDiv(eventTime, this.resolution);
+        final int slot = (int)Math.floorMod(period, (long)this.counts.length);
+
+        if (this.periods[slot] == period)
+        {
+            this.counts[slot] += events;
+        }
+        else if (this.periods[slot] < period)
+        {
+            this.periods[slot] = period;
+            this.counts[slot] = events;
+        }
+    }
+
+    /**
+     * Count the events seen in the buckets covering a window which ends at the supplied time. The window is
+     * rounded up to a whole number of buckets, including the current, partially elapsed bucket, and is capped at
+     * the horizon.
+     *
+     * @param now The current time, in milliseconds.
+     * @param window The length of the window, in milliseconds.
+     * @return The number of events seen in the window.
+     */
+    long count(final long now, final long window)
+    {
+        final long current = Math.floorDiv(now, this.resolution);
+        final long buckets = Math.min(this.counts.length, (window + this.resolution - 1) / this.resolution);
+
+        long events = 0;
+        for (long period = current - buckets + 1; period <= current; period++)
+        {
+            final int slot = (int)Math.floorMod(period, (long)this.counts.length);
+            if (this.periods[slot] == period) events += this.counts[slot];
+        }
+
+        return events;
+    }
+}
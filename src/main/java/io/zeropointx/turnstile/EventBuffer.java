@@ -0,0 +1,158 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An {@link EventBuffer} is a bounded, lock-free queue of observed events which many threads may publish to but
+ * only one thread at a time may drain. Publishing an event claims a slot with a single atomic increment and never
+ * allocates, so that it can be done on the hot path of a {@link Turnstile} without extending its critical section.
+ * <p>
+ * The buffer does not decide who drains it. Callers must ensure that {@link #drain(Sink)} is never called by two
+ * threads at once, and must drain the buffer whenever {@link #hasRoom(long)} reports that it is full.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+final class EventBuffer
+{
+    /** The sequence numbers of buffered events. */
+    private final long[] sequenceNumbers;
+    /** The number of permits each buffered event was weighted with. */
+    private final long[] permits;
+    /** The observed times of buffered events. */
+    private final long[] eventTimes;
+    /** For each slot, one more than the claim which was most recently published into it. */
+    private final AtomicLongArray published;
+    /** A mask which maps a claim onto its slot. */
+    private final int mask;
+
+    /** The next claim to hand out to a publisher. */
+    private final AtomicLong tail;
+    /** The next claim to be drained. This is only ever written by the draining thread. */
+    private volatile long head;
+
+    /**
+     * Create a new, empty {@link EventBuffer}.
+     *
+     * @param capacity The number of events the buffer can hold. This must be a power of two.
+     */
+    EventBuffer(final int capacity)
+    {
+        super();
+
+        Preconditions.checkArgument(capacity > 1 && Integer.bitCount(capacity) == 1,
+                                    "Buffer capacity must be a power of two.");
+
+        this.sequenceNumbers = new long[capacity];
+        this.permits = new long[capacity];
+        this.eventTimes = new long[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        this.tail = new AtomicLong(0L);
+    }
+
+    /**
+     * Fetch the number of events the buffer can hold.
+     *
+     * @return The capacity of the buffer.
+     */
+    int capacity()
+    {
+        return this.mask + 1;
+    }
+
+    /**
+     * Claim the next slot in the buffer. Every claim must eventually be published with
+     * {@link #publish(long, long, long, long)}, and only once {@link #hasRoom(long)} allows it.
+     *
+     * @return The claim to publish into.
+     */
+    long claim()
+    {
+        return this.tail.getAndIncrement();
+    }
+
+    /**
+     * Check to see if the slot for a claim is free to be published into.
+     *
+     * @param claim The claim to check.
+     * @return {@code true} if the claim can be published, {@code false} if the buffer must be drained first.
+     */
+    boolean hasRoom(final long claim)
+    {
+        return claim - this.head < this.capacity();
+    }
+
+    /**
+     * Publish an event into a previously claimed slot.
+     *
+     * @param claim The claim returned by {@link #claim()}.
+     * @param sequenceNumber The sequence number of the event.
+     * @param permits The number of permits the event was weighted with.
+     * @param eventTime The time the event was observed.
+     */
+    void publish(final long claim, final long sequenceNumber, final long permits, final long eventTime)
+    {
+        final int slot = (int)(claim & this.mask);
+        this.sequenceNumbers[slot] = sequenceNumber;
+        this.permits[slot] = permits;
+        this.eventTimes[slot] = eventTime;
+        this.published.lazySet(slot, claim + 1);
+    }
+
+    /**
+     * Remove all events which have been published, in the order they were claimed, handing each one to the
+     * supplied {@link Sink}. Draining stops early at any claim that has not been published yet.
+     *
+     * @param sink The {@link Sink} which receives the drained events.
+     */
+    void drain(final Sink sink)
+    {
+        long next = this.head;
+        while (true)
+        {
+            final int slot = (int)(next & this.mask);
+            if (this.published.get(slot) != next + 1) break;
+
+            sink.accept(this.sequenceNumbers[slot], this.permits[slot], this.eventTimes[slot]);
+            this.head = ++next;
+        }
+    }
+
+    /**
+     * A {@link Sink} receives events drained from an {@link EventBuffer}.
+     */
+    @FunctionalInterface
+    interface Sink
+    {
+        /**
+         * Accept a drained event.
+         *
+         * @param sequenceNumber The sequence number of the event.
+         * @param permits The number of permits the event was weighted with.
+         * @param eventTime The time the event was observed.
+         */
+        void accept(long sequenceNumber, long permits, long eventTime);
+    }
+}
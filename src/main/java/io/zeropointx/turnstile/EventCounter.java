@@ -0,0 +1,208 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An {@link EventCounter} counts the events entering a {@link Turnstile} and hands out their sequence numbers.
+ * Events weighted with several permits are counted once for each permit, and are identified by the sequence
+ * number of their last permit.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+abstract class EventCounter
+{
+    /**
+     * Create a counter which hands out strictly consecutive sequence numbers from a single shared count.
+     *
+     * @return A new {@link EventCounter}.
+     */
+    static EventCounter shared()
+    {
+        return new Shared();
+    }
+
+    /**
+     * Create a counter which splits the count across a number of stripes, so that threads counting events
+     * usually touch only the state of their own stripe.
+     *
+     * @param stripes The number of stripes to split the count across.
+     * @return A new {@link EventCounter}.
+     */
+    static EventCounter striped(final int stripes)
+    {
+        return new Striped(stripes);
+    }
+
+    /**
+     * Count an event.
+     *
+     * @param permits The number of permits the event is weighted with.
+     * @return The sequence number of the last permit of the event.
+     */
+    abstract long add(final long permits);
+
+    /**
+     * Predict the sequence number the next event counted by the current thread would be given, without counting
+     * it.
+     *
+     * @param permits The number of permits the event is weighted with.
+     * @return The sequence number the last permit of the event would have.
+     */
+    abstract long peek(final long permits);
+
+    /**
+     * Fetch the number of permits counted so far.
+     *
+     * @return The count as a {@code long}.
+     */
+    abstract long get();
+
+    /**
+     * Reset the count to zero.
+     */
+    abstract void reset();
+
+    /**
+     * Check to see if sequence numbers are handed out consecutively, in the order events were counted. Sequence
+     * numbers which are not can't be used to spot missing events.
+     *
+     * @return {@code true} if sequence numbers are consecutive, {@code false} if they are not.
+     */
+    abstract boolean isConsecutive();
+
+    /**
+     * A counter backed by a single atomic count.
+     */
+    private static final class Shared extends EventCounter
+    {
+        private final AtomicLong count = new AtomicLong(0L);
+
+        @Override
+        long add(final long permits)
+        {
+            return this.count.addAndGet(permits);
+        }
+
+        @Override
+        long peek(final long permits)
+        {
+            return this.count.get() + permits;
+        }
+
+        @Override
+        long get()
+        {
+            return this.count.get();
+        }
+
+        @Override
+        void reset()
+        {
+            this.count.set(0L);
+        }
+
+        @Override
+        boolean isConsecutive()
+        {
+            return true;
+        }
+    }
+
+    /**
+     * A counter split across several stripes, each on its own cache line. Each thread counts on its home stripe,
+     * and the sequence numbers of the stripes are interleaved: the {@code n}th permit counted on stripe {@code s}
+     * of {@code k} is given the sequence number {@code (n - 1) * k + s + 1}. Sequence numbers are therefore unique,
+     * but are only roughly in the order that events were counted.
+     */
+    private static final class Striped extends EventCounter
+    {
+        /** The spacing between stripes in the count array, chosen to keep each stripe on its own cache line. */
+        private static final int STRIPE_PADDING = 16;
+
+        private final int stripes;
+        private final AtomicLongArray counts;
+
+        private Striped(final int stripes)
+        {
+            super();
+
+            Preconditions.checkArgument(stripes > 0, "Stripe count must be positive.");
+
+            this.stripes = stripes;
+            this.counts = new AtomicLongArray(stripes * Striped.STRIPE_PADDING);
+        }
+
+        private int getHomeStripe()
+        {
+            return (int)(Thread.currentThread().getId() % this.stripes);
+        }
+
+        private long toSequence(final int stripe, final long stripeCount)
+        {
+            return (stripeCount - 1) * this.stripes + stripe + 1;
+        }
+
+        @Override
+        long add(final long permits)
+        {
+            final int stripe = this.getHomeStripe();
+            return this.toSequence(stripe, this.counts.addAndGet(stripe * Striped.STRIPE_PADDING, permits));
+        }
+
+        @Override
+        long peek(final long permits)
+        {
+            final int stripe = this.getHomeStripe();
+            return this.toSequence(stripe, this.counts.get(stripe * Striped.STRIPE_PADDING) + permits);
+        }
+
+        @Override
+        long get()
+        {
+            long total = 0L;
+            for (int stripe = 0; stripe < this.stripes; stripe++)
+            {
+                total += this.counts.get(stripe * Striped.STRIPE_PADDING);
+            }
+
+            return total;
+        }
+
+        @Override
+        void reset()
+        {
+            for (int stripe = 0; stripe < this.stripes; stripe++)
+            {
+                this.counts.set(stripe * Striped.STRIPE_PADDING, 0L);
+            }
+        }
+
+        @Override
+        boolean isConsecutive()
+        {
+            return false;
+        }
+    }
+}
@@ -21,8 +21,12 @@ package io.zeropointx.turnstile;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 
+import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -48,6 +52,25 @@ import java.util.regex.Pattern;
 public class FlowRate implements Comparable<FlowRate>
 {
     private static final Pattern FLOWRATE_PATTERN = Pattern.compile("(\\d+(\\.\\d+)?)([A-Za-z]*)/(\\d*)([a-z]+)");
+    private static final Pattern LIST_SEPARATOR = Pattern.compile("\\s*,\\s*");
+
+    /**
+     * Parse a comma-separated list of {@link FlowRate}s, such as {@code "10/s,500/m,10k/h"}. Each entry in the list
+     * is in the format accepted by {@link #FlowRate(CharSequence)}.
+     *
+     * @param text The text to parse.
+     * @return An unmodifiable {@link List} of the parsed {@link FlowRate}s, in the order they were declared.
+     */
+    public static List<FlowRate> parseList(final CharSequence text)
+    {
+        final List<FlowRate> rates = new ArrayList<>();
+        for (String entry : FlowRate.LIST_SEPARATOR.split(text.toString().trim()))
+        {
+            rates.add(new FlowRate(entry));
+        }
+
+        return Collections.unmodifiableList(rates);
+    }
 
     private final double volume;
     private final Duration duration;
@@ -154,4 +177,27 @@ public class FlowRate implements Comparable<FlowRate>
     {
         return Double.compare(this.getVolumePerSecond(), that.getVolumePerSecond());
     }
+
+    /**
+     * Describe this rate in the same format accepted by {@link #FlowRate(CharSequence)}, using the largest time
+     * unit which divides the duration evenly.
+     *
+     * @return A description such as {@code "10/s"} or {@code "2.5/10m"}.
+     */
+    @Override
+    public String toString()
+    {
+        final long millis = this.duration.toMillis();
+
+        FlowRateUnit unit = FlowRateUnit.MS;
+        for (FlowRateUnit candidate : FlowRateUnit.values())
+        {
+            if (millis % candidate.getChronoUnit().getDuration().toMillis() == 0) unit = candidate;
+        }
+
+        final long unitCount = millis / unit.getChronoUnit().getDuration().toMillis();
+        final String volumeText = BigDecimal.valueOf(this.volume).stripTrailingZeros().toPlainString();
+
+        return volumeText + "/" + ((unitCount == 1) ? "" : unitCount) + unit.name().toLowerCase();
+    }
 }
@@ -0,0 +1,217 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import io.zeropointx.time.DefaultTimeProvider;
+import io.zeropointx.time.TimeProvider;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link GcraMeter} restricts events to a {@link FlowRate} using the generic cell rate algorithm (GCRA). Rather
+ * than counting events, the meter tracks the "theoretical arrival time" of the next event. Each event claims the
+ * later of the current time and the theoretical arrival time as its own scheduled time, then pushes the theoretical
+ * arrival time forward by a single emission interval.
+ * <p>
+ * The theoretical arrival time is updated with a single compare-and-set, so this meter is concurrent. A
+ * {@link Turnstile} using it will not serialize its callers: each thread claims its own scheduled time and then
+ * waits for it in parallel with all the others.
+ * <p>
+ * Unlike the {@link RateControlledMeter}, the first event is allowed to pass immediately and credit is never
+ * accumulated while the meter is idle.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class GcraMeter extends Meter
+{
+    /** The rate that events can flow through the meter. */
+    private volatile FlowRate rate;
+    /** The amount of time between each event, in nanoseconds. */
+    private volatile long emissionInterval;
+    /** The theoretical arrival time of the next event, as nanoseconds of active meter time. */
+    private final AtomicLong arrivalTime = new AtomicLong(0L);
+
+    /**
+     * Create a new {@link GcraMeter} that limits events based on the given rate.
+     *
+     * @param rate The {@link FlowRate} to restrict events to.
+     */
+    public GcraMeter(final FlowRate rate)
+    {
+        this(rate, DefaultTimeProvider.getDefault());
+    }
+
+    /**
+     * Create a new {@link GcraMeter} that limits events based on the given rate, measuring time with the supplied
+     * {@link TimeProvider}.
+     *
+     * @param rate The {@link FlowRate} to restrict events to.
+     * @param timeProvider The {@link TimeProvider} to use as the meter's clock.
+     */
+    public GcraMeter(final FlowRate rate, final TimeProvider timeProvider)
+    {
+        super(timeProvider);
+
+        this.rate = rate;
+        this.emissionInterval = GcraMeter.intervalFor(rate);
+
+        this.reset();
+    }
+
+    /**
+     * Create a new {@link GcraMeter} that limits events based on the given rate.
+     *
+     * @param rateDescription A {@link String} describing a rate, in the format accepted by {@link FlowRate}.
+     * @see FlowRate#FlowRate(CharSequence)
+     */
+    public GcraMeter(final CharSequence rateDescription)
+    {
+        this(new FlowRate(rateDescription));
+    }
+
+    @Override
+    protected Optional<FlowRate> getFlowRate()
+    {
+        return Optional.of(this.rate);
+    }
+
+    /**
+     * Calculate the emission interval for a rate.
+     *
+     * @param rate The {@link FlowRate}.
+     * @return The amount of time between each event, in nanoseconds.
+     */
+    private static long intervalFor(final FlowRate rate)
+    {
+        return Math.round(rate.getDuration().toNanos() / rate.getVolume());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The theoretical arrival time is moved so that the next event is spaced from the most recently claimed one at
+     * the new rate. An event racing with the change may still be spaced at the old rate.
+     */
+    @Override
+    protected synchronized void setRate(final FlowRate rate)
+    {
+        final long interval = GcraMeter.intervalFor(rate);
+        final long change = interval - this.emissionInterval;
+
+        while (true)
+        {
+            final long arrival = this.arrivalTime.get();
+            if (arrival == 0L) break;
+            if (this.arrivalTime.compareAndSet(arrival, arrival + change)) break;
+        }
+
+        this.rate = rate;
+        this.emissionInterval = interval;
+    }
+
+    @Override
+    protected void reset()
+    {
+        super.reset();
+        this.arrivalTime.set(0L);
+    }
+
+    @Override
+    protected boolean isConcurrent()
+    {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The delay is calculated for the next event to claim a slot, regardless of the event count supplied.
+     */
+    @Override
+    protected long getDelayFor(final long eventCount)
+    {
+        return Meter.toMillis(this.getDelayNanosFor(eventCount));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The delay is calculated for the next event to claim a slot, regardless of the event count supplied.
+     */
+    @Override
+    protected long getDelayNanosFor(final long eventCount)
+    {
+        return this.getDelayNanosFor(eventCount, 1L);
+    }
+
+    @Override
+    protected long getDelayNanosFor(final long eventCount, final long permits)
+    {
+        return Math.max(0L, this.arrivalTime.get() - this.getActiveNanos()) + (permits - 1) * this.emissionInterval;
+    }
+
+    @Override
+    protected long claim(final long eventCount)
+    {
+        return this.tryClaim(eventCount, 1L, Long.MAX_VALUE);
+    }
+
+    @Override
+    protected long claim(final long eventCount, final long permits)
+    {
+        return this.tryClaim(eventCount, permits, Long.MAX_VALUE);
+    }
+
+    @Override
+    protected void refund(final long eventCount, final long permits)
+    {
+        while (true)
+        {
+            final long now = this.getActiveNanos();
+            final long arrival = this.arrivalTime.get();
+            final long refunded = Math.max(now, arrival - permits * this.emissionInterval);
+
+            if (refunded >= arrival || this.arrivalTime.compareAndSet(arrival, refunded)) return;
+        }
+    }
+
+    @Override
+    protected long tryClaim(final long eventCount, final long maxDelay)
+    {
+        return this.tryClaim(eventCount, 1L, maxDelay);
+    }
+
+    @Override
+    protected long tryClaim(final long eventCount, final long permits, final long maxDelay)
+    {
+        while (true)
+        {
+            final long interval = this.emissionInterval;
+            final long now = this.getActiveNanos();
+            final long arrival = this.arrivalTime.get();
+            final long scheduled = Math.max(now, arrival);
+            final long delay = scheduled + (permits - 1) * interval - now;
+
+            if (delay > maxDelay) return Meter.REJECTED;
+            if (this.arrivalTime.compareAndSet(arrival, scheduled + permits * interval)) return delay;
+        }
+    }
+}
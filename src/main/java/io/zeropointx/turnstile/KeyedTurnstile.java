@@ -0,0 +1,235 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import io.zeropointx.time.DefaultTimeProvider;
+import io.zeropointx.time.TimeProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Function;
+
+/**
+ * A {@link KeyedTurnstile} applies a separate rate limit to each of an open-ended set of keys, such as tenants or
+ * API keys. Limits are created lazily the first time a key is seen, using a {@link FlowRate} shared by all keys or
+ * one chosen per key.
+ * <p>
+ * Rather than a full {@link Turnstile} per key, each key is tracked with a pair of {@code long}s and paced in the
+ * same way as a {@link GcraMeter}: the first event for a key passes immediately, and later events are spaced at the
+ * key's rate. Waiting threads are never serialized, either within a key or across keys.
+ * <p>
+ * Memory is bounded in two ways: keys which have not been used for the idle timeout are evicted, and once the
+ * maximum number of keys is reached, the least recently used keys are evicted to make room. An evicted key simply
+ * starts afresh the next time it is seen. The idle timeout should be longer than the longest delay expected for any
+ * key, otherwise a key with many waiting events could be evicted and admit new events early.
+ *
+ * @param <K> The type of the keys.
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class KeyedTurnstile<K>
+{
+    /** The per-key limits, evicted by size and idle time. */
+    private final LoadingCache<K, KeyState> limits;
+    /** An object that supplies views of the current effective time. */
+    private final TimeProvider timeProvider;
+
+    /**
+     * Create a new {@link KeyedTurnstile} that applies the same rate to every key.
+     *
+     * @param rate The {@link FlowRate} to restrict the events for each key to.
+     * @param maximumKeys The maximum number of keys to track at once.
+     * @param idleTimeout The amount of time a key may go unused before it is evicted. This must be positive.
+     */
+    public KeyedTurnstile(final FlowRate rate, final long maximumKeys, final Duration idleTimeout)
+    {
+        this(key -> rate, maximumKeys, idleTimeout, DefaultTimeProvider.getDefault());
+    }
+
+    /**
+     * Create a new {@link KeyedTurnstile} that chooses a rate for each key.
+     *
+     * @param rates A function which supplies the {@link FlowRate} for a key. It is called once when a key is first
+     * seen (or seen again after being evicted).
+     * @param maximumKeys The maximum number of keys to track at once.
+     * @param idleTimeout The amount of time a key may go unused before it is evicted.
+     * @param timeProvider The {@link TimeProvider} to use as the clock.
+     */
+    public KeyedTurnstile(final Function<? super K, FlowRate> rates, final long maximumKeys,
+                          final Duration idleTimeout, final TimeProvider timeProvider)
+    {
+        super();
+
+        Preconditions.checkArgument(maximumKeys > 0, "Maximum key count must be positive.");
+        // A key evicted as soon as it is used would never be limited at all
+        Preconditions.checkArgument(!idleTimeout.isNegative() && !idleTimeout.isZero(),
+                                    "Idle timeout must be positive.");
+
+        this.timeProvider = timeProvider;
+        this.limits = CacheBuilder.newBuilder()
+                                  .maximumSize(maximumKeys)
+                                  .expireAfterAccess(idleTimeout.toNanos(), TimeUnit.NANOSECONDS)
+                                  .ticker(new Ticker()
+                                  {
+                                      @Override
+                                      public long read()
+                                      {
+                                          return timeProvider.getNanoTime();
+                                      }
+                                  })
+                                  .build(new CacheLoader<K, KeyState>()
+                                  {
+                                      @Override
+                                      public KeyState load(final K key)
+                                      {
+                                          return new KeyState(rates.apply(key), timeProvider.getNanoTime());
+                                      }
+                                  });
+    }
+
+    /**
+     * Fetch the approximate number of keys currently being tracked.
+     *
+     * @return The number of keys.
+     */
+    public long getKeyCount()
+    {
+        return this.limits.size();
+    }
+
+    /**
+     * Stop tracking the supplied key. The next event for the key will start afresh.
+     *
+     * @param key The key to forget.
+     */
+    public void forget(final K key)
+    {
+        this.limits.invalidate(key);
+    }
+
+    /**
+     * Have the current thread attempt to pass the turnstile for the supplied key. If allowing the thread to
+     * continue would exceed the key's rate, the thread will be blocked until it is allowed to pass.
+     *
+     * @param key The key the event belongs to.
+     * @throws InterruptedException If the thread is interrupted while being restricted.
+     */
+    public void pass(final K key) throws InterruptedException
+    {
+        this.hold(this.limits.getUnchecked(key).tryClaim(this.timeProvider.getNanoTime(), Long.MAX_VALUE));
+    }
+
+    /**
+     * Attempt to pass the turnstile for the supplied key without waiting. A rejected event has no effect on the
+     * events allowed for the key later.
+     *
+     * @param key The key the event belongs to.
+     * @return {@code true} if the event passed the turnstile, {@code false} if it was rejected.
+     */
+    public boolean tryPass(final K key)
+    {
+        return this.limits.getUnchecked(key).tryClaim(this.timeProvider.getNanoTime(), 0L) != Meter.REJECTED;
+    }
+
+    /**
+     * Attempt to pass the turnstile for the supplied key, waiting no longer than the supplied timeout. A rejected
+     * event has no effect on the events allowed for the key later. Timeouts too large to count in nanoseconds are
+     * treated as unlimited.
+     *
+     * @param key The key the event belongs to.
+     * @param timeout The maximum amount of time the thread is willing to be delayed.
+     * @return {@code true} if the event passed the turnstile, {@code false} if it was rejected.
+     * @throws InterruptedException If the thread is interrupted while being restricted.
+     */
+    public boolean tryPass(final K key, final Duration timeout) throws InterruptedException
+    {
+        final long maxDelay = Turnstile.toNanos(timeout);
+        final long delay = this.limits.getUnchecked(key).tryClaim(this.timeProvider.getNanoTime(), maxDelay);
+        if (delay == Meter.REJECTED) return false;
+
+        this.hold(delay);
+        return true;
+    }
+
+    /**
+     * Block the current thread for a delay previously claimed for a key.
+     *
+     * @param delayNanos The number of nanoseconds to block the thread.
+     * @throws InterruptedException If the thread is interrupted while being blocked.
+     */
+    private void hold(final long delayNanos) throws InterruptedException
+    {
+        Turnstile.log.trace("Delaying thread: {}ns", delayNanos);
+
+        Meter.park(delayNanos);
+    }
+
+    /**
+     * The compact pacing state for a single key.
+     */
+    private static final class KeyState
+    {
+        private static final AtomicLongFieldUpdater<KeyState> ARRIVAL_TIME =
+                AtomicLongFieldUpdater.newUpdater(KeyState.class, "arrivalTime");
+
+        /** The amount of time between events for this key, in nanoseconds. */
+        private final long interval;
+        /** The theoretical arrival time of the next event for this key, as monotonic nanoseconds. */
+        private volatile long arrivalTime;
+
+        /**
+         * Create a new {@link KeyState}.
+         *
+         * @param rate The {@link FlowRate} for the key.
+         * @param now The current monotonic time, in nanoseconds.
+         */
+        private KeyState(final FlowRate rate, final long now)
+        {
+            super();
+
+            this.interval = Math.round(rate.getDuration().toNanos() / rate.getVolume());
+            this.arrivalTime = now;
+        }
+
+        /**
+         * Claim the next slot for this key, as long as it is no more than the supplied delay away.
+         *
+         * @param now The current monotonic time, in nanoseconds.
+         * @param maxDelay The longest acceptable delay, in nanoseconds.
+         * @return The delay until the slot, in nanoseconds, or {@link Meter#REJECTED}.
+         */
+        private long tryClaim(final long now, final long maxDelay)
+        {
+            while (true)
+            {
+                final long arrival = this.arrivalTime;
+                final long delay = Math.max(0L, arrival - now);
+
+                if (delay > maxDelay) return Meter.REJECTED;
+                if (KeyState.ARRIVAL_TIME.compareAndSet(this, arrival, now + delay + this.interval)) return delay;
+            }
+        }
+    }
+}
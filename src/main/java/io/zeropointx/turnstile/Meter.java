@@ -18,26 +18,100 @@
 
 package io.zeropointx.turnstile;
 
+import com.google.common.base.Preconditions;
+import io.zeropointx.time.DefaultTimeProvider;
+import io.zeropointx.time.TimeProvider;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
 /**
  * A {@link Meter} is an abstraction of a policy for restricting the frequency that any event is allowed to occur.
+ * <p>
+ * An event may carry a weight of several permits, such as a number of bytes or a query cost. Each permit counts as
+ * one event against the meter's policy, so {@link FlowRate} volumes are measured in permits. A weighted event is
+ * identified by the event count of its last permit, and is held until that permit would be allowed to pass, exactly
+ * as if each of its permits had been passed in turn. Meters whose policy depends only on the event count get this
+ * for free; meters which keep their own state override the weighted forms of {@link #getDelayNanosFor(long, long)},
+ * {@link #claim(long, long)} and {@link #tryClaim(long, long, long)}.
+ * <p>
+ * All time is measured with the monotonic clock of a {@link TimeProvider} (see {@link TimeProvider#getNanoTime()}),
+ * so meters are unaffected by changes to the wall clock and can account for time at nanosecond resolution.
  *
  * @author jeff@darkware.org
  * @since 2017-05-01
  */
 public abstract class Meter
 {
-    private long previousElapsed;
-    private long lastStart;
-    private boolean paused;
+    /** A marker value returned by {@link #tryClaim(long, long)} when an event is not allowed to pass. */
+    protected static final long REJECTED = Long.MIN_VALUE;
+
+    /** An object that supplies views of the current effective time. */
+    private final TimeProvider timeProvider;
+    /** The current state of the meter's clock. */
+    private volatile Timing timing = Timing.RESET;
+    /** The histogram that imposed delays are recorded to, if any. */
+    private volatile DelayHistogram delayHistogram;
+    /** The strategy used to hold threads for the delays imposed by this meter. */
+    private volatile WaitStrategy waitStrategy = WaitStrategy.PARK;
+
+    /**
+     * Create a new {@link Meter}, measuring time with the {@link DefaultTimeProvider}.
+     */
+    protected Meter()
+    {
+        this(DefaultTimeProvider.getDefault());
+    }
+
+    /**
+     * Create a new {@link Meter}, measuring time with the supplied {@link TimeProvider}.
+     *
+     * @param timeProvider The {@link TimeProvider} to use as the meter's clock.
+     */
+    protected Meter(final TimeProvider timeProvider)
+    {
+        super();
+
+        this.timeProvider = timeProvider;
+    }
+
+    /**
+     * Fetch the {@link TimeProvider} used as the clock for this meter.
+     *
+     * @return The {@link TimeProvider}.
+     */
+    protected TimeProvider getTimeProvider()
+    {
+        return this.timeProvider;
+    }
+
+    /**
+     * Fetch the {@link WaitStrategy} used to hold threads for the delays imposed by this meter.
+     *
+     * @return The current {@link WaitStrategy}.
+     */
+    public WaitStrategy getWaitStrategy()
+    {
+        return this.waitStrategy;
+    }
+
+    /**
+     * Set the {@link WaitStrategy} used to hold threads for the delays imposed by this meter. The default is
+     * {@link WaitStrategy#PARK}. Threads which are already being held are not affected.
+     *
+     * @param waitStrategy The {@link WaitStrategy} to use.
+     */
+    public void setWaitStrategy(final WaitStrategy waitStrategy)
+    {
+        this.waitStrategy = Preconditions.checkNotNull(waitStrategy, "A wait strategy is required.");
+    }
 
     /**
      * Reset this meter to a freshly-initialized state.
      */
     protected void reset()
     {
-        this.previousElapsed = 0L;
-        this.lastStart = -1L;
-        this.paused = true;
+        this.timing = Timing.RESET;
     }
 
     /**
@@ -48,7 +122,7 @@ public abstract class Meter
      */
     protected boolean isPaused()
     {
-        return this.paused;
+        return this.timing.paused;
     }
 
     /**
@@ -57,8 +131,7 @@ public abstract class Meter
      */
     protected void start()
     {
-        this.lastStart = System.currentTimeMillis();
-        this.paused = false;
+        this.timing = new Timing(this.timing.previousElapsed, this.timeProvider.getNanoTime(), false);
     }
 
     /**
@@ -68,9 +141,7 @@ public abstract class Meter
      */
     protected void pause()
     {
-        this.previousElapsed += this.getElapsedTime();
-        this.lastStart = -1;
-        this.paused = true;
+        this.timing = new Timing(this.getActiveNanos(), 0L, true);
     }
 
     /**
@@ -80,7 +151,7 @@ public abstract class Meter
      */
     protected long getPreviousElapsedTime()
     {
-        return this.previousElapsed;
+        return TimeUnit.NANOSECONDS.toMillis(this.timing.previousElapsed);
     }
 
     /**
@@ -90,9 +161,71 @@ public abstract class Meter
      */
     protected long getElapsedTime()
     {
-        if (this.isPaused()) return 0L;
+        final Timing current = this.timing;
+        if (current.paused) return 0L;
+
+        return TimeUnit.NANOSECONDS.toMillis(this.timeProvider.getNanoTime() - current.lastStart);
+    }
+
+    /**
+     * Fetch the total amount of time this meter has spent running, including all time before the most recent
+     * pause.
+     *
+     * @return The amount of time in milliseconds.
+     */
+    protected long getActiveTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(this.getActiveNanos());
+    }
+
+    /**
+     * Fetch the total amount of time this meter has spent running, including all time before the most recent
+     * pause. This is the clock that all time-based policies should be measured against.
+     *
+     * @return The amount of time in nanoseconds.
+     */
+    protected long getActiveNanos()
+    {
+        final Timing current = this.timing;
+        if (current.paused) return current.previousElapsed;
+
+        return current.previousElapsed + (this.timeProvider.getNanoTime() - current.lastStart);
+    }
+
+    /**
+     * Fetch the rate this meter restricts events to, if it is governed by a single {@link FlowRate}.
+     *
+     * @return The configured {@link FlowRate}, or an empty {@link Optional} if the meter has no single rate.
+     */
+    protected Optional<FlowRate> getFlowRate()
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Change the rate this meter restricts events to. The change takes effect from the current moment: events
+     * which have already been committed keep the delays they were given, and later events carry on from the
+     * meter's current state at the new rate rather than starting over. The default implementation does not
+     * support changing the rate.
+     *
+     * @param rate The new {@link FlowRate} to restrict events to.
+     * @throws UnsupportedOperationException If the meter does not support changing its rate.
+     */
+    protected void setRate(final FlowRate rate)
+    {
+        throw new UnsupportedOperationException("This meter does not support changing its rate.");
+    }
 
-        return System.currentTimeMillis() - this.lastStart;
+    /**
+     * Check to see if this meter is safe to use from several threads at once without any external
+     * synchronization. A {@link Turnstile} will serialize all events passing through a meter that is not concurrent,
+     * which includes any time the event spends being delayed.
+     *
+     * @return {@code true} if the meter manages its own thread safety, {@code false} if callers must be serialized.
+     */
+    protected boolean isConcurrent()
+    {
+        return false;
     }
 
     /**
@@ -108,6 +241,35 @@ public abstract class Meter
      */
     protected abstract long getDelayFor(final long eventCount);
 
+    /**
+     * Calculate the delay to apply to the given serial event identifier, in nanoseconds. This has the same
+     * contract as {@link #getDelayFor(long)}. The default implementation simply converts the result of
+     * {@link #getDelayFor(long)}; meters that account for time more finely should override it.
+     *
+     * @param eventCount The event count (or serial event ID).
+     * @return The number of nanoseconds from the current time that the event should be delayed before being
+     * allowed to pass.
+     */
+    protected long getDelayNanosFor(final long eventCount)
+    {
+        return TimeUnit.MILLISECONDS.toNanos(this.getDelayFor(eventCount));
+    }
+
+    /**
+     * Calculate the delay to apply to an event weighted with several permits, in nanoseconds. This has the same
+     * contract as {@link #getDelayNanosFor(long)}. The default implementation reports the delay for the last permit
+     * of the event.
+     *
+     * @param eventCount The event count of the last permit of the event.
+     * @param permits The number of permits the event is weighted with.
+     * @return The number of nanoseconds from the current time that the event should be delayed before being
+     * allowed to pass.
+     */
+    protected long getDelayNanosFor(final long eventCount, final long permits)
+    {
+        return this.getDelayNanosFor(eventCount);
+    }
+
     /**
      * Delay the current thread until the {@link Meter}'s policy for passing events is met. This may or may not
      * actually block the thread, and side effects of the passing may not be noticeable by the thread which called
@@ -119,12 +281,185 @@ public abstract class Meter
      */
     public void delay(final long eventCount) throws InterruptedException
     {
-        final long delayMillis = this.getDelayFor(eventCount);
-        Turnstile.log.trace("Delaying thread: {}ms", delayMillis);
+        final long delay = this.claim(eventCount);
+        this.recordDelay(delay);
+        this.hold(delay);
+    }
 
-        if (delayMillis > 0)
+    /**
+     * Delay the current thread until the {@link Meter}'s policy allows an event weighted with several permits to
+     * pass. This behaves exactly like {@link #delay(long)}, with a single decision made for the whole event.
+     *
+     * @param eventCount The event count of the last permit of the event.
+     * @param permits The number of permits the event is weighted with.
+     * @throws InterruptedException If the thread is interrupted while being blocked to enforce the {@link Meter}'s
+     * policy.
+     */
+    public void delay(final long eventCount, final long permits) throws InterruptedException
+    {
+        final long delay = this.claim(eventCount, permits);
+        this.recordDelay(delay);
+        this.hold(delay);
+    }
+
+    /**
+     * Record every delay imposed by this meter to the supplied histogram. A {@link Turnstile} does this for
+     * the meter it is built with, so a meter shared by several turnstiles records to the most recent one.
+     *
+     * @param histogram The {@link DelayHistogram} to record to, or {@code null} to stop recording.
+     */
+    void recordDelaysTo(final DelayHistogram histogram)
+    {
+        this.delayHistogram = histogram;
+    }
+
+    /**
+     * Record a delay imposed by this meter, if a histogram has been supplied.
+     *
+     * @param delayNanos The delay in nanoseconds.
+     */
+    void recordDelay(final long delayNanos)
+    {
+        final DelayHistogram histogram = this.delayHistogram;
+        if (histogram != null) histogram.record(delayNanos);
+    }
+
+    /**
+     * Commit the given event to this meter's policy and calculate the delay it should be held for. Unlike
+     * {@link #getDelayNanosFor(long)}, this may update the state of the meter to account for the event. The default
+     * implementation keeps no state beyond the event count and simply reports {@link #getDelayNanosFor(long)}.
+     *
+     * @param eventCount The event count (or serial event ID) of the event to commit.
+     * @return The number of nanoseconds from the current time that the event should be delayed before being
+     * allowed to pass.
+     */
+    protected long claim(final long eventCount)
+    {
+        return this.getDelayNanosFor(eventCount);
+    }
+
+    /**
+     * Commit an event weighted with several permits to this meter's policy and calculate the delay it should be
+     * held for. This has the same contract as {@link #claim(long)}. The default implementation claims the last
+     * permit of the event.
+     *
+     * @param eventCount The event count of the last permit of the event.
+     * @param permits The number of permits the event is weighted with.
+     * @return The number of nanoseconds from the current time that the event should be delayed before being
+     * allowed to pass.
+     */
+    protected long claim(final long eventCount, final long permits)
+    {
+        return this.claim(eventCount);
+    }
+
+    /**
+     * Commit the given event to this meter's policy, but only if it would be delayed no longer than the supplied
+     * limit. If the event would be delayed for longer, the meter is left untouched.
+     *
+     * @param eventCount The event count (or serial event ID) of the event to commit.
+     * @param maxDelay The longest delay, in nanoseconds, that is acceptable for the event.
+     * @return The number of nanoseconds from the current time that the event should be delayed before being
+     * allowed to pass, or {@link #REJECTED} if the event was not committed.
+     */
+    protected long tryClaim(final long eventCount, final long maxDelay)
+    {
+        if (this.getDelayNanosFor(eventCount) > maxDelay) return Meter.REJECTED;
+
+        return this.claim(eventCount);
+    }
+
+    /**
+     * Commit an event weighted with several permits to this meter's policy, but only if it would be delayed no
+     * longer than the supplied limit. This has the same contract as {@link #tryClaim(long, long)}.
+     *
+     * @param eventCount The event count of the last permit of the event.
+     * @param permits The number of permits the event is weighted with.
+     * @param maxDelay The longest delay, in nanoseconds, that is acceptable for the event.
+     * @return The number of nanoseconds from the current time that the event should be delayed before being
+     * allowed to pass, or {@link #REJECTED} if the event was not committed.
+     */
+    protected long tryClaim(final long eventCount, final long permits, final long maxDelay)
+    {
+        if (this.getDelayNanosFor(eventCount, permits) > maxDelay) return Meter.REJECTED;
+
+        return this.claim(eventCount, permits);
+    }
+
+    /**
+     * Return the permits of an event which was claimed but never happened, such as one whose thread was
+     * interrupted while being held or whose work turned out to be unnecessary. Later events are then delayed as if
+     * the refunded event had never been claimed, though the meter never hands out credit for time that has
+     * already passed. Events which have already been claimed keep the delays they were given. The default
+     * implementation keeps no state to return the permits to, and does nothing.
+     *
+     * @param eventCount The event count of the last permit of the event.
+     * @param permits The number of permits the event was weighted with.
+     */
+    protected void refund(final long eventCount, final long permits)
+    {
+        // Nothing to return
+    }
+
+    /**
+     * Block the current thread for a delay previously calculated by this meter, using the meter's
+     * {@link WaitStrategy}.
+     *
+     * @param delayNanos The number of nanoseconds to block the thread. Values of zero or less will not block.
+     * @throws InterruptedException If the thread is interrupted while being blocked.
+     */
+    protected void hold(final long delayNanos) throws InterruptedException
+    {
+        Turnstile.log.trace("Delaying thread: {}ns", delayNanos);
+
+        this.waitStrategy.await(delayNanos);
+    }
+
+    /**
+     * Park the current thread for the supplied amount of real time.
+     *
+     * @param delayNanos The number of nanoseconds to block the thread. Values of zero or less will not block.
+     * @throws InterruptedException If the thread is interrupted while being blocked.
+     */
+    static void park(final long delayNanos) throws InterruptedException
+    {
+        WaitStrategy.PARK.await(delayNanos);
+    }
+
+    /**
+     * Convert a delay in nanoseconds to the nearest whole millisecond.
+     *
+     * @param delayNanos The delay in nanoseconds.
+     * @return The delay in milliseconds.
+     */
+    protected static long toMillis(final long delayNanos)
+    {
+        return Math.round(delayNanos / 1_000_000d);
+    }
+
+    /**
+     * An immutable snapshot of the state of a meter's clock. The clock is replaced as a whole whenever it changes,
+     * so that concurrent readers always see a consistent view of it.
+     */
+    private static class Timing
+    {
+        /** The state of a freshly reset meter. */
+        private static final Timing RESET = new Timing(0L, 0L, true);
+
+        /** The active time accumulated before the most recent start, in nanoseconds. */
+        private final long previousElapsed;
+        /** The monotonic time of the most recent start, in nanoseconds. */
+        private final long lastStart;
+        /** Whether the clock is currently paused. */
+        private final boolean paused;
+
+        private Timing(final long previousElapsed, final long lastStart, final boolean paused)
         {
-            Thread.sleep(delayMillis);
+            super();
+
+            this.previousElapsed = previousElapsed;
+            this.lastStart = lastStart;
+            this.paused = paused;
         }
     }
 }
@@ -0,0 +1,152 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import com.google.common.base.Preconditions;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A set of {@link MovingAverages} tracks exponentially weighted moving averages of an event rate, in the style of
+ * the Unix load average. Events are tallied in a {@link LongAdder} and folded into every average once per
+ * {@link #TICK_INTERVAL tick}, so marking an event costs an uncontended increment and each average is updated in
+ * O(1) time per tick. Any number of ticks missed while idle are applied in a single step.
+ * <p>
+ * Averages are stored as the raw bits of a {@code double}, so that reading them never allocates or blocks.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+final class MovingAverages
+{
+    /** The interval at which tallied events are folded into the averages, in milliseconds. */
+    static final long TICK_INTERVAL = 5_000L;
+
+    /** The decay factor applied to each average every tick. */
+    private final double[] alphas;
+    /** The averaged rates, in events per second, stored as raw {@code double} bits. */
+    private final AtomicLongArray rates;
+    /** The periods the averages are taken over. */
+    private final Duration[] periods;
+    /** Events which have not been folded into the averages yet. */
+    private final LongAdder uncounted;
+    /** The time the most recent tick was applied, in milliseconds. */
+    private final AtomicLong lastTick;
+    /** Whether any tick has been applied yet. The first tick seeds the averages instead of decaying them. */
+    private volatile boolean initialized;
+
+    /**
+     * Create a new set of {@link MovingAverages}.
+     *
+     * @param now The current time, in milliseconds.
+     * @param periods The time constants of each average.
+     */
+    MovingAverages(final long now, final Duration... periods)
+    {
+        super();
+
+        this.periods = periods.clone();
+        this.alphas = new double[periods.length];
+        for (int i = 0; i < periods.length; i++)
+        {
+            Preconditions.checkArgument(!periods[i].isNegative() && !periods[i].isZero(),
+                                        "Averaging periods must be positive.");
+            this.alphas[i] = 1.0 - Math.exp(-(double)MovingAverages.TICK_INTERVAL / periods[i].toMillis());
+        }
+
+        this.rates = new AtomicLongArray(periods.length);
+        this.uncounted = new LongAdder();
+        this.lastTick = new AtomicLong(now);
+    }
+
+    /**
+     * Fetch the number of averages being tracked.
+     *
+     * @return The number of averages.
+     */
+    int size()
+    {
+        return this.periods.length;
+    }
+
+    /**
+     * Fetch the time constant of one of the averages.
+     *
+     * @param index The index of the average.
+     * @return The period as a {@link Duration}.
+     */
+    Duration getPeriod(final int index)
+    {
+        return this.periods[index];
+    }
+
+    /**
+     * Tally events seen at the supplied time.
+     *
+     * @param now The current time, in milliseconds.
+     * @param events The number of events.
+     */
+    void mark(final long now, final long events)
+    {
+        this.tickIfNecessary(now);
+        this.uncounted.add(events);
+    }
+
+    /**
+     * Fetch one of the averaged rates.
+     *
+     * @param now The current time, in milliseconds.
+     * @param index The index of the average.
+     * @return The averaged rate, in events per second.
+     */
+    double getRate(final long now, final int index)
+    {
+        this.tickIfNecessary(now);
+        return Double.longBitsToDouble(this.rates.get(index));
+    }
+
+    /**
+     * Apply any ticks which are due. Only the thread which advances the tick time applies them.
+     *
+     * @param now The current time, in milliseconds.
+     */
+    private void tickIfNecessary(final long now)
+    {
+        final long previous = this.lastTick.get();
+        final long ticks = (now - previous) / MovingAverages.TICK_INTERVAL;
+        if (ticks <= 0) return;
+        if (!this.lastTick.compareAndSet(previous, previous + ticks * MovingAverages.TICK_INTERVAL)) return;
+
+        final double instantRate = this.uncounted.sumThenReset() * 1000.0 / MovingAverages.TICK_INTERVAL;
+        for (int i = 0; i < this.alphas.length; i++)
+        {
+            double rate = Double.longBitsToDouble(this.rates.get(i));
+            rate = this.initialized ? rate + this.alphas[i] * (instantRate - rate) : instantRate;
+
+            // Every further tick saw no events and only decays the average
+            rate *= Math.pow(1.0 - this.alphas[i], ticks - 1);
+
+            this.rates.set(i, Double.doubleToRawLongBits(rate));
+        }
+        this.initialized = true;
+    }
+}
@@ -0,0 +1,386 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import com.google.common.base.Preconditions;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link OpenMetricsExporter} renders the metrics of a set of named {@link Turnstile}s in the OpenMetrics text
+ * format, as scraped by Prometheus. The following metric families are rendered, each labelled with the name of the
+ * turnstile:
+ * <ul>
+ *     <li>{@code turnstile_events}: A counter of events counted by the turnstile, including those still waiting.</li>
+ *     <li>{@code turnstile_rejected}: A counter of events rejected by the turnstile.</li>
+ *     <li>{@code turnstile_waiters}: A gauge of the events currently waiting to pass.</li>
+ *     <li>{@code turnstile_blocked}: A gauge which is one while the turnstile is blocked.</li>
+ *     <li>{@code turnstile_rate}: A gauge of each moving average of the event rate, labelled with its period.</li>
+ *     <li>{@code turnstile_admission_wait_seconds}, {@code turnstile_meter_delay_seconds} and
+ *     {@code turnstile_hold_seconds}: Histograms of the delays recorded by the
+ *     {@link TurnstileObserver}.</li>
+ * </ul>
+ * All metrics are read from counters which are maintained as events pass, so scraping never iterates the
+ * observer's window of events. Output is rendered into a reusable buffer, so a scrape creates no garbage beyond
+ * the output itself.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class OpenMetricsExporter
+{
+    /** The content type of the rendered metrics. */
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    /** The upper bounds of the histogram buckets, in nanoseconds. */
+    private static final long[] BUCKET_BOUNDS = {
+            TimeUnit.MICROSECONDS.toNanos(100), TimeUnit.MICROSECONDS.toNanos(500),
+            TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(5),
+            TimeUnit.MILLISECONDS.toNanos(10), TimeUnit.MILLISECONDS.toNanos(50),
+            TimeUnit.MILLISECONDS.toNanos(100), TimeUnit.MILLISECONDS.toNanos(500),
+            TimeUnit.SECONDS.toNanos(1), TimeUnit.SECONDS.toNanos(5), TimeUnit.SECONDS.toNanos(10)
+    };
+    /** The upper bounds of the histogram buckets, as rendered. */
+    private static final String[] BUCKET_LABELS = {
+            "0.0001", "0.0005", "0.001", "0.005", "0.01", "0.05", "0.1", "0.5", "1.0", "5.0", "10.0"
+    };
+
+    /** The turnstiles to export, in the order they were registered. */
+    private final List<Exported> exported;
+    /** The buffer that metrics are rendered into. */
+    private final StringBuilder buffer;
+    /** The buffer that rendered metrics are encoded into for serving. */
+    private byte[] encoded;
+    /** Scratch space for cumulative histogram counts. */
+    private final long[] bucketCounts;
+
+    /**
+     * Create a new {@link OpenMetricsExporter} with no turnstiles.
+     */
+    public OpenMetricsExporter()
+    {
+        super();
+
+        this.exported = new CopyOnWriteArrayList<>();
+        this.buffer = new StringBuilder(4096);
+        this.encoded = new byte[4096];
+        this.bucketCounts = new long[OpenMetricsExporter.BUCKET_BOUNDS.length];
+    }
+
+    /**
+     * Add a {@link Turnstile} to the exported metrics.
+     *
+     * @param name The name to label the turnstile's metrics with.
+     * @param turnstile The {@link Turnstile} to export.
+     * @throws IllegalArgumentException If a turnstile is already exported with the same name.
+     */
+    public void register(final String name, final Turnstile turnstile)
+    {
+        synchronized (this.exported)
+        {
+            for (Exported existing : this.exported)
+            {
+                Preconditions.checkArgument(!existing.name.equals(name),
+                                            "A turnstile is already exported as: %s", name);
+            }
+
+            this.exported.add(new Exported(name, turnstile));
+        }
+    }
+
+    /**
+     * Remove a {@link Turnstile} from the exported metrics. Names which are not exported are ignored.
+     *
+     * @param name The name the turnstile was registered with.
+     */
+    public void unregister(final String name)
+    {
+        synchronized (this.exported)
+        {
+            this.exported.removeIf(existing -> existing.name.equals(name));
+        }
+    }
+
+    /**
+     * Render the current metrics for all exported turnstiles. The returned text is only valid until the next
+     * call to this method, and must not be modified.
+     *
+     * @return The rendered metrics.
+     */
+    public synchronized CharSequence scrape()
+    {
+        this.buffer.setLength(0);
+        this.render(this.buffer);
+
+        return this.buffer;
+    }
+
+    /**
+     * Render the current metrics for all exported turnstiles.
+     *
+     * @param out The {@link StringBuilder} to append the metrics to.
+     */
+    public synchronized void render(final StringBuilder out)
+    {
+        final List<Exported> turnstiles = this.exported;
+        final int count = turnstiles.size();
+
+        this.header(out, "turnstile_events", "counter",
+                    "Events counted by the turnstile, including those still waiting.");
+        for (int i = 0; i < count; i++)
+        {
+            final Exported entry = turnstiles.get(i);
+            out.append("turnstile_events_total").append(entry.labels).append(' ')
+               .append(entry.turnstile.getEventsSeen()).append('\n');
+        }
+
+        this.header(out, "turnstile_rejected", "counter", "Events rejected by the turnstile.");
+        for (int i = 0; i < count; i++)
+        {
+            final Exported entry = turnstiles.get(i);
+            out.append("turnstile_rejected_total").append(entry.labels).append(' ')
+               .append(entry.turnstile.getEventsRejected()).append('\n');
+        }
+
+        this.header(out, "turnstile_waiters", "gauge", "Events currently waiting to pass the turnstile.");
+        for (int i = 0; i < count; i++)
+        {
+            final Exported entry = turnstiles.get(i);
+            out.append("turnstile_waiters").append(entry.labels).append(' ')
+               .append(entry.turnstile.getWaiterCount()).append('\n');
+        }
+
+        this.header(out, "turnstile_blocked", "gauge", "Whether the turnstile is blocked.");
+        for (int i = 0; i < count; i++)
+        {
+            final Exported entry = turnstiles.get(i);
+            out.append("turnstile_blocked").append(entry.labels).append(' ')
+               .append(entry.turnstile.isBlocked() ? 1 : 0).append('\n');
+        }
+
+        this.header(out, "turnstile_rate", "gauge",
+                    "Moving averages of the rate of events passing the turnstile, per second.");
+        for (int i = 0; i < count; i++)
+        {
+            final Exported entry = turnstiles.get(i);
+            final TurnstileObserver observer = entry.turnstile.getObserver();
+            for (int p = 0; p < entry.periodLabels.length; p++)
+            {
+                out.append("turnstile_rate").append(entry.periodLabels[p]).append(' ')
+                   .append(observer.getMovingAverageRate(p)).append('\n');
+            }
+        }
+
+        this.header(out, "turnstile_admission_wait_seconds", "histogram",
+                    "Time spent waiting to be admitted for metering.");
+        for (int i = 0; i < count; i++)
+        {
+            final Exported entry = turnstiles.get(i);
+            this.histogram(out, "turnstile_admission_wait_seconds", entry,
+                           entry.turnstile.getObserver().getAdmissionWaitHistogram());
+        }
+
+        this.header(out, "turnstile_meter_delay_seconds", "histogram", "Delays imposed by the meter.");
+        for (int i = 0; i < count; i++)
+        {
+            final Exported entry = turnstiles.get(i);
+            this.histogram(out, "turnstile_meter_delay_seconds", entry,
+                           entry.turnstile.getObserver().getMeterDelayHistogram());
+        }
+
+        this.header(out, "turnstile_hold_seconds", "histogram", "Total time spent passing the turnstile.");
+        for (int i = 0; i < count; i++)
+        {
+            final Exported entry = turnstiles.get(i);
+            this.histogram(out, "turnstile_hold_seconds", entry, entry.turnstile.getObserver().getHoldTimeHistogram());
+        }
+
+        out.append("# EOF\n");
+    }
+
+    /**
+     * Start a tiny HTTP server which serves the exported metrics at {@code /metrics}. Requests are handled one at
+     * a time on a single thread.
+     *
+     * @param address The address to listen on.
+     * @return The started {@link HttpServer}. Stop it to stop serving metrics.
+     * @throws IOException If the server could not be started.
+     */
+    public HttpServer serve(final InetSocketAddress address) throws IOException
+    {
+        final HttpServer server = HttpServer.create(address, 0);
+        server.createContext("/metrics", this::handle);
+        server.start();
+
+        return server;
+    }
+
+    /**
+     * Respond to a scrape request.
+     *
+     * @param exchange The {@link HttpExchange} of the request.
+     * @throws IOException If the response could not be written.
+     */
+    private void handle(final HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            exchange.getResponseHeaders().set("Content-Type", OpenMetricsExporter.CONTENT_TYPE);
+
+            synchronized (this)
+            {
+                final int length = this.encode(this.scrape());
+                exchange.sendResponseHeaders(200, length);
+                try (OutputStream body = exchange.getResponseBody())
+                {
+                    body.write(this.encoded, 0, length);
+                }
+            }
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Encode text as UTF-8 into the reusable output buffer, growing it if needed.
+     *
+     * @param text The text to encode.
+     * @return The number of bytes written.
+     */
+    private int encode(final CharSequence text)
+    {
+        final int length = text.length();
+        if (this.encoded.length < length * 3) this.encoded = Arrays.copyOf(this.encoded, length * 3);
+
+        int pos = 0;
+        for (int i = 0; i < length; i++)
+        {
+            final char c = text.charAt(i);
+            if (c < 0x80)
+            {
+                this.encoded[pos++] = (byte)c;
+            }
+            else if (c < 0x800)
+            {
+                this.encoded[pos++] = (byte)(0xC0 | (c >> 6));
+                this.encoded[pos++] = (byte)(0x80 | (c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1)))
+            {
+                final int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                this.encoded[pos++] = (byte)(0xF0 | (codePoint >> 18));
+                this.encoded[pos++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+                this.encoded[pos++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+                this.encoded[pos++] = (byte)(0x80 | (codePoint & 0x3F));
+            }
+            else
+            {
+                this.encoded[pos++] = (byte)(0xE0 | (c >> 12));
+                this.encoded[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                this.encoded[pos++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+
+        return pos;
+    }
+
+    private void header(final StringBuilder out, final String family, final String type, final String help)
+    {
+        out.append("# TYPE ").append(family).append(' ').append(type).append('\n');
+        if (type.equals("histogram")) out.append("# UNIT ").append(family).append(" seconds\n");
+        out.append("# HELP ").append(family).append(' ').append(help).append('\n');
+    }
+
+    private void histogram(final StringBuilder out, final String family, final Exported entry,
+                           final DelayHistogram histogram)
+    {
+        final long total = histogram.cumulativeCounts(OpenMetricsExporter.BUCKET_BOUNDS, this.bucketCounts);
+        for (int b = 0; b < this.bucketCounts.length; b++)
+        {
+            out.append(family).append("_bucket").append(entry.bucketLabels[b]).append(' ')
+               .append(this.bucketCounts[b]).append('\n');
+        }
+        out.append(family).append("_bucket").append(entry.bucketLabels[this.bucketCounts.length]).append(' ')
+           .append(total).append('\n');
+        out.append(family).append("_count").append(entry.labels).append(' ').append(total).append('\n');
+        out.append(family).append("_sum").append(entry.labels).append(' ')
+           .append(histogram.getSum() / 1_000_000_000d).append('\n');
+    }
+
+    /**
+     * Escape a value for use inside a quoted label.
+     *
+     * @param value The value to escape.
+     * @return The escaped value.
+     */
+    static String escape(final String value)
+    {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * An exported {@link Turnstile}, along with its pre-rendered label sets.
+     */
+    private static class Exported
+    {
+        private final String name;
+        private final Turnstile turnstile;
+        /** The label set identifying the turnstile. */
+        private final String labels;
+        /** The label sets for each moving average period. */
+        private final String[] periodLabels;
+        /** The label sets for each histogram bucket, followed by the overflow bucket. */
+        private final String[] bucketLabels;
+
+        private Exported(final String name, final Turnstile turnstile)
+        {
+            super();
+
+            this.name = name;
+            this.turnstile = turnstile;
+
+            final String nameLabel = "turnstile=\"" + OpenMetricsExporter.escape(name) + "\"";
+            this.labels = "{" + nameLabel + "}";
+
+            final TurnstileObserver observer = turnstile.getObserver();
+            this.periodLabels = new String[observer.getMovingAverageCount()];
+            for (int p = 0; p < this.periodLabels.length; p++)
+            {
+                this.periodLabels[p] = "{" + nameLabel + ",period=\"" + observer.getMovingAveragePeriod(p) + "\"}";
+            }
+
+            this.bucketLabels = new String[OpenMetricsExporter.BUCKET_LABELS.length + 1];
+            for (int b = 0; b < OpenMetricsExporter.BUCKET_LABELS.length; b++)
+            {
+                this.bucketLabels[b] = "{" + nameLabel + ",le=\"" + OpenMetricsExporter.BUCKET_LABELS[b] + "\"}";
+            }
+            this.bucketLabels[OpenMetricsExporter.BUCKET_LABELS.length] = "{" + nameLabel + ",le=\"+Inf\"}";
+        }
+    }
+}
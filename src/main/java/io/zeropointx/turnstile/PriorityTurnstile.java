@@ -0,0 +1,385 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link PriorityTurnstile} shares the rate of a single {@link Turnstile} between several classes of traffic,
+ * such as interactive and batch requests. Each caller names its class when it passes, and waits in a queue for
+ * that class. Whenever the turnstile is free, the next waiter is chosen from among the queues according to the
+ * {@link Policy}, so a class with waiting events never has to queue behind a flood from another class.
+ * <p>
+ * Under the default {@link Policy#WEIGHTED_FAIR} policy, busy classes share the rate in proportion to their
+ * weights, measured in permits. A class with nothing waiting takes no share at all, so the classes which are busy
+ * divide the whole rate between them. Under {@link Policy#STRICT}, classes are served strictly in the order they
+ * were supplied, which can starve the later classes entirely while the earlier ones stay busy.
+ * <p>
+ * Events are admitted to the underlying turnstile one at a time, even if its {@link Meter} is concurrent, since
+ * the order of admission is the whole point. Each class has its own {@link TurnstileObserver}, which records the
+ * class's event rates, how long its events queued before being admitted, and how long they took to pass in all.
+ *
+ * @param <K> The type used to name the classes.
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class PriorityTurnstile<K>
+{
+    /**
+     * The policy used to choose which class is admitted next.
+     */
+    public enum Policy
+    {
+        /** Busy classes share the rate in proportion to their weights, using start-time fair queueing. */
+        WEIGHTED_FAIR,
+        /** Classes are served strictly in the order they were supplied. */
+        STRICT,
+    }
+
+    /** The {@link Turnstile} whose rate is shared. */
+    private final Turnstile turnstile;
+    /** The policy used to choose which class is admitted next. */
+    private final Policy policy;
+    /** The state of each class, in the order the classes were supplied. */
+    private final ImmutableMap<K, ClassState> classes;
+    /** The lock guarding the queues and the scheduling state. */
+    private final ReentrantLock lock;
+    /** Whether an event is currently being admitted to the underlying turnstile. */
+    private boolean serving;
+    /** The virtual time of the fair queue: the start tag of the most recently admitted event. */
+    private double virtualTime;
+
+    /**
+     * Create a new {@link PriorityTurnstile} which shares the supplied turnstile's rate fairly by weight.
+     *
+     * @param turnstile The {@link Turnstile} whose rate is shared.
+     * @param weights The weight of each class. The iteration order of the map breaks ties between classes.
+     */
+    public PriorityTurnstile(final Turnstile turnstile, final Map<K, ? extends Number> weights)
+    {
+        this(turnstile, weights, Policy.WEIGHTED_FAIR);
+    }
+
+    /**
+     * Create a new {@link PriorityTurnstile}.
+     *
+     * @param turnstile The {@link Turnstile} whose rate is shared.
+     * @param weights The weight of each class. The iteration order of the map gives the priority of each class
+     * under {@link Policy#STRICT}, and breaks ties under {@link Policy#WEIGHTED_FAIR}.
+     * @param policy The {@link Policy} used to choose which class is admitted next.
+     */
+    public PriorityTurnstile(final Turnstile turnstile, final Map<K, ? extends Number> weights, final Policy policy)
+    {
+        super();
+
+        Preconditions.checkArgument(!weights.isEmpty(), "At least one class is required.");
+
+        final ImmutableMap.Builder<K, ClassState> states = ImmutableMap.builder();
+        for (Map.Entry<K, ? extends Number> entry : weights.entrySet())
+        {
+            final double weight = entry.getValue().doubleValue();
+            Preconditions.checkArgument(weight > 0, "Class weights must be positive.");
+
+            states.put(entry.getKey(), new ClassState(weight));
+        }
+
+        this.turnstile = turnstile;
+        this.policy = policy;
+        this.classes = states.build();
+        this.lock = new ReentrantLock();
+    }
+
+    /**
+     * Fetch the {@link Turnstile} whose rate is shared.
+     *
+     * @return The underlying {@link Turnstile}.
+     */
+    public Turnstile getTurnstile()
+    {
+        return this.turnstile;
+    }
+
+    /**
+     * Fetch the policy used to choose which class is admitted next.
+     *
+     * @return The {@link Policy}.
+     */
+    public Policy getPolicy()
+    {
+        return this.policy;
+    }
+
+    /**
+     * Fetch the classes sharing the turnstile, in the order they were supplied.
+     *
+     * @return An unmodifiable {@link Set} of classes.
+     */
+    public Set<K> getClasses()
+    {
+        return this.classes.keySet();
+    }
+
+    /**
+     * Fetch the weight of a class.
+     *
+     * @param priorityClass The class.
+     * @return The weight of the class.
+     */
+    public double getWeight(final K priorityClass)
+    {
+        return this.getState(priorityClass).weight;
+    }
+
+    /**
+     * Fetch the observer which is recording metrics for a class.
+     *
+     * @param priorityClass The class.
+     * @return The {@link TurnstileObserver} for the class.
+     */
+    public TurnstileObserver getObserver(final K priorityClass)
+    {
+        return this.getState(priorityClass).observer;
+    }
+
+    /**
+     * Fetch the number of events of a class which are queued, waiting for their turn at the turnstile.
+     *
+     * @param priorityClass The class.
+     * @return The number of queued events.
+     */
+    public int getQueueLength(final K priorityClass)
+    {
+        final ClassState state = this.getState(priorityClass);
+
+        this.lock.lock();
+        try
+        {
+            return state.queue.size();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Have the current thread pass the turnstile as a single event of the supplied class.
+     *
+     * @param priorityClass The class of the event.
+     * @throws InterruptedException If the thread is interrupted while waiting its turn or being restricted.
+     * @see #pass(Object, long)
+     */
+    public void pass(final K priorityClass) throws InterruptedException
+    {
+        this.pass(priorityClass, 1L);
+    }
+
+    /**
+     * Have the current thread pass the turnstile as an event of the supplied class, weighted with several
+     * permits. The thread waits in its class's queue until the {@link Policy} chooses it, then passes the
+     * underlying turnstile with {@link Turnstile#pass(long)}. A thread interrupted while queued leaves the queue
+     * without having used any of the rate.
+     *
+     * @param priorityClass The class of the event.
+     * @param permits The number of permits the event is weighted with. This must be at least one.
+     * @throws InterruptedException If the thread is interrupted while waiting its turn or being restricted.
+     */
+    public void pass(final K priorityClass, final long permits) throws InterruptedException
+    {
+        Preconditions.checkArgument(permits > 0, "At least one permit is required.");
+
+        final ClassState state = this.getState(priorityClass);
+        final long arrived = System.nanoTime();
+
+        this.lock.lock();
+        try
+        {
+            final Waiter waiter = new Waiter(permits, this.lock.newCondition());
+            state.queue.add(waiter);
+            this.dispatch();
+
+            while (!waiter.granted)
+            {
+                try
+                {
+                    waiter.turn.await();
+                }
+                catch (InterruptedException e)
+                {
+                    // If the turn was granted in the meantime, hand it on to the next waiter
+                    if (waiter.granted) this.release();
+                    else state.queue.remove(waiter);
+                    throw e;
+                }
+            }
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+
+        final long admitted = System.nanoTime();
+        boolean passed = false;
+        try
+        {
+            this.turnstile.pass(permits);
+            passed = true;
+        }
+        finally
+        {
+            this.lock.lock();
+            try
+            {
+                // Observe before the next waiter is admitted, so the class's sequence numbers arrive in order
+                if (passed)
+                {
+                    state.events += permits;
+                    state.observer.observe(state.events, permits);
+                }
+                this.release();
+            }
+            finally
+            {
+                this.lock.unlock();
+            }
+        }
+
+        state.observer.observeHold(admitted - arrived, System.nanoTime() - arrived);
+    }
+
+    /**
+     * Fetch the state of a class.
+     *
+     * @param priorityClass The class.
+     * @return The {@link ClassState}.
+     * @throws IllegalArgumentException If the class is not known.
+     */
+    private ClassState getState(final K priorityClass)
+    {
+        final ClassState state = this.classes.get(priorityClass);
+        Preconditions.checkArgument(state != null, "Unknown priority class: %s", priorityClass);
+
+        return state;
+    }
+
+    /**
+     * Finish admitting the current event and choose the next one. This must be called while holding the lock.
+     */
+    private void release()
+    {
+        this.serving = false;
+        this.dispatch();
+    }
+
+    /**
+     * If no event is being admitted, choose the next waiter according to the policy and grant it its turn. This
+     * must be called while holding the lock.
+     */
+    private void dispatch()
+    {
+        if (this.serving) return;
+
+        ClassState next = null;
+        double nextStart = Double.MAX_VALUE;
+        for (ClassState state : this.classes.values())
+        {
+            if (state.queue.isEmpty()) continue;
+
+            if (this.policy == Policy.STRICT)
+            {
+                next = state;
+                break;
+            }
+
+            // An idle class carries no credit forward, so it starts no earlier than the current virtual time
+            final double start = Math.max(this.virtualTime, state.lastFinish);
+            if (start < nextStart)
+            {
+                next = state;
+                nextStart = start;
+            }
+        }
+        if (next == null) return;
+
+        final Waiter waiter = next.queue.poll();
+        if (this.policy == Policy.WEIGHTED_FAIR)
+        {
+            this.virtualTime = nextStart;
+            next.lastFinish = nextStart + waiter.permits / next.weight;
+        }
+
+        this.serving = true;
+        waiter.granted = true;
+        waiter.turn.signal();
+    }
+
+    /**
+     * The queue and scheduling state of a single class.
+     */
+    private static final class ClassState
+    {
+        /** The share of the rate given to the class, relative to the others. */
+        private final double weight;
+        /** The waiters of the class, in arrival order. */
+        private final ArrayDeque<Waiter> queue;
+        /** The observer recording the events of the class. */
+        private final TurnstileObserver observer;
+        /** The number of permits the class has passed, used as its observer's sequence number. Guarded by the lock. */
+        private long events;
+        /** The virtual finish tag of the most recently admitted event of the class. */
+        private double lastFinish;
+
+        private ClassState(final double weight)
+        {
+            super();
+
+            this.weight = weight;
+            this.queue = new ArrayDeque<>();
+            this.observer = new TurnstileObserver();
+        }
+    }
+
+    /**
+     * A thread waiting for its turn at the turnstile.
+     */
+    private static final class Waiter
+    {
+        /** The number of permits the waiting event is weighted with. */
+        private final long permits;
+        /** The condition the thread waits on until its turn is granted. */
+        private final Condition turn;
+        /** Whether the thread has been granted its turn. */
+        private boolean granted;
+
+        private Waiter(final long permits, final Condition turn)
+        {
+            super();
+
+            this.permits = permits;
+            this.turn = turn;
+        }
+    }
+}
@@ -18,15 +18,30 @@
 
 package io.zeropointx.turnstile;
 
+import com.google.common.base.Preconditions;
+import io.zeropointx.time.DefaultTimeProvider;
+import io.zeropointx.time.TimeProvider;
+
+import java.time.Duration;
+import java.util.Optional;
+
 /**
+ * A {@link RateControlledMeter} holds events to a fixed schedule, spaced evenly at the configured rate. Events which
+ * arrive behind schedule, such as after an idle period, are allowed to catch up without delay. The amount of credit
+ * that can be banked this way may be bounded, in which case events after a long idle period or pause are paced at
+ * the configured rate once the credit is spent, rather than released all at once.
+ *
  * @author jeff@darkware.org
  * @since 2017-05-01
  */
 public class RateControlledMeter extends Meter
 {
-    /** The rate that events can flow through the meter. */
-    private final FlowRate rate;
-    private final double millisPerEvent;
+    /** The schedule that events are currently held to. */
+    private volatile Schedule schedule;
+    /** The most time that events may fall behind schedule, in nanoseconds, if bounded by time. */
+    private final long maxCreditNanos;
+    /** The most events that may fall behind schedule, if bounded by events, or a negative value if not. */
+    private final double maxCreditEvents;
 
     /**
      * Create a new {@link RateControlledMeter} that limits events based on the given rate.
@@ -35,14 +50,102 @@ public class RateControlledMeter extends Meter
      */
     public RateControlledMeter(final FlowRate rate)
     {
-        super();
+        this(rate, DefaultTimeProvider.getDefault());
+    }
+
+    /**
+     * Create a new {@link RateControlledMeter} that limits events based on the given rate, measuring time with the
+     * supplied {@link TimeProvider}.
+     *
+     * @param rate The {@link FlowRate} to restrict events to.
+     * @param timeProvider The {@link TimeProvider} to use as the meter's clock.
+     */
+    public RateControlledMeter(final FlowRate rate, final TimeProvider timeProvider)
+    {
+        this(rate, Long.MAX_VALUE, -1.0, timeProvider);
+    }
+
+    /**
+     * Create a new {@link RateControlledMeter} that limits events based on the given rate, banking no more than the
+     * given amount of time as credit while events are behind schedule.
+     *
+     * @param rate The {@link FlowRate} to restrict events to.
+     * @param maxCredit The most time that events may fall behind schedule and still be allowed to catch up.
+     */
+    public RateControlledMeter(final FlowRate rate, final Duration maxCredit)
+    {
+        this(rate, maxCredit, DefaultTimeProvider.getDefault());
+    }
+
+    /**
+     * Create a new {@link RateControlledMeter} that limits events based on the given rate, banking no more than the
+     * given amount of time as credit while events are behind schedule.
+     *
+     * @param rate The {@link FlowRate} to restrict events to.
+     * @param maxCredit The most time that events may fall behind schedule and still be allowed to catch up.
+     * @param timeProvider The {@link TimeProvider} to use as the meter's clock.
+     */
+    public RateControlledMeter(final FlowRate rate, final Duration maxCredit, final TimeProvider timeProvider)
+    {
+        this(rate, RateControlledMeter.creditNanosFor(maxCredit), -1.0, timeProvider);
+    }
+
+    /**
+     * Create a new {@link RateControlledMeter} that limits events based on the given rate, banking no more than the
+     * given number of events as credit while events are behind schedule. After an idle period, at most this many
+     * events beyond the first are allowed to pass without delay.
+     *
+     * @param rate The {@link FlowRate} to restrict events to.
+     * @param maxCreditEvents The most events that may fall behind schedule and still be allowed to catch up.
+     */
+    public RateControlledMeter(final FlowRate rate, final long maxCreditEvents)
+    {
+        this(rate, maxCreditEvents, DefaultTimeProvider.getDefault());
+    }
+
+    /**
+     * Create a new {@link RateControlledMeter} that limits events based on the given rate, banking no more than the
+     * given number of events as credit while events are behind schedule. After an idle period, at most this many
+     * events beyond the first are allowed to pass without delay.
+     *
+     * @param rate The {@link FlowRate} to restrict events to.
+     * @param maxCreditEvents The most events that may fall behind schedule and still be allowed to catch up.
+     * @param timeProvider The {@link TimeProvider} to use as the meter's clock.
+     */
+    public RateControlledMeter(final FlowRate rate, final long maxCreditEvents, final TimeProvider timeProvider)
+    {
+        this(rate, Long.MAX_VALUE, maxCreditEvents, timeProvider);
+
+        Preconditions.checkArgument(maxCreditEvents >= 0, "Maximum credit must not be negative.");
+    }
+
+    private RateControlledMeter(final FlowRate rate, final long maxCreditNanos, final double maxCreditEvents,
+                                final TimeProvider timeProvider)
+    {
+        super(timeProvider);
 
-        this.rate = rate;
-        this.millisPerEvent = this.rate.getDuration().toMillis() / this.rate.getVolume();
+        this.schedule = new Schedule(rate, 0.0, 0L);
+        this.maxCreditNanos = maxCreditNanos;
+        this.maxCreditEvents = maxCreditEvents;
 
         this.reset();
     }
 
+    /**
+     * Check a maximum amount of credit and convert it to nanoseconds. Credit too large to count in nanoseconds is
+     * treated as unlimited.
+     *
+     * @param maxCredit The most time that events may fall behind schedule and still be allowed to catch up.
+     * @return The maximum credit in nanoseconds.
+     */
+    private static long creditNanosFor(final Duration maxCredit)
+    {
+        Preconditions.checkNotNull(maxCredit, "A maximum credit is required.");
+        Preconditions.checkArgument(!maxCredit.isNegative(), "Maximum credit must not be negative.");
+
+        return Turnstile.toNanos(maxCredit);
+    }
+
     /**
      * Create a new {@link RateControlledMeter} that limits events based on the given rate.
      *
@@ -54,12 +157,167 @@ public class RateControlledMeter extends Meter
         this(new FlowRate(rateDescription));
     }
 
+    @Override
+    protected Optional<FlowRate> getFlowRate()
+    {
+        return Optional.of(this.schedule.rate);
+    }
+
+    @Override
+    protected synchronized void reset()
+    {
+        super.reset();
+
+        this.schedule = new Schedule(this.schedule.rate, 0.0, 0L);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The schedule is rebased at the current moment: the number of events that the old rate allowed up to now is
+     * carried over, and only later events are spaced at the new rate. Events which were behind or ahead of schedule
+     * remain so by the same number of events.
+     */
+    @Override
+    protected synchronized void setRate(final FlowRate rate)
+    {
+        final long now = this.getActiveNanos();
+        final Schedule current = this.schedule;
+
+        this.schedule = new Schedule(rate, current.getPositionAt(now), now);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The schedule is shifted back by the refunded permits, so that every later event is due as if they had never
+     * been counted.
+     */
+    @Override
+    protected synchronized void refund(final long eventCount, final long permits)
+    {
+        final Schedule current = this.schedule;
+
+        this.schedule = new Schedule(current.rate, current.basePosition + permits, current.baseNanos);
+    }
+
     @Override
     protected long getDelayFor(final long eventCount)
     {
-        long totalMillis = this.getPreviousElapsedTime() + this.getElapsedTime();
-        long targetMillis = Math.round(eventCount * this.millisPerEvent);
+        return Meter.toMillis(this.getDelayNanosFor(eventCount));
+    }
+
+    @Override
+    protected long getDelayNanosFor(final long eventCount)
+    {
+        return this.getDelayNanosFor(eventCount, 1L);
+    }
+
+    @Override
+    protected long getDelayNanosFor(final long eventCount, final long permits)
+    {
+        final Schedule current = this.schedule;
+        long totalNanos = this.getActiveNanos();
+        long firstNanos = current.getTimeOf(eventCount - permits + 1);
+        long targetNanos = current.getTimeOf(eventCount);
+
+        // Credit beyond the limit is forfeited, pushing the whole event later
+        targetNanos += Math.max(firstNanos, totalNanos - this.getMaxCreditNanos(current)) - firstNanos;
+
+        return targetNanos - totalNanos;
+    }
+
+    @Override
+    protected long claim(final long eventCount)
+    {
+        return this.claim(eventCount, 1L);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the event is further behind schedule than the maximum credit allows, the schedule is rebased so that the
+     * first permit of the event is exactly the maximum credit behind, and later permits are paced from there.
+     */
+    @Override
+    protected long claim(final long eventCount, final long permits)
+    {
+        final long now = this.getActiveNanos();
+        final Schedule current = this.schedule;
+        final long maxCredit = this.getMaxCreditNanos(current);
+        final long firstPermit = eventCount - permits + 1;
+
+        if (current.getTimeOf(firstPermit) < now - maxCredit)
+        {
+            synchronized (this)
+            {
+                // A concurrent rate change replaces the schedule, so only rebase the one that was checked
+                if (this.schedule == current) this.schedule = new Schedule(current.rate, firstPermit, now - maxCredit);
+            }
+        }
+
+        return this.schedule.getTimeOf(eventCount) - now;
+    }
+
+    /**
+     * Calculate the most time that events may fall behind a schedule.
+     *
+     * @param schedule The {@link Schedule} the credit applies to.
+     * @return The maximum credit, in nanoseconds.
+     */
+    private long getMaxCreditNanos(final Schedule schedule)
+    {
+        if (this.maxCreditEvents < 0) return this.maxCreditNanos;
+
+        return Math.round(this.maxCreditEvents * schedule.nanosPerEvent);
+    }
+
+    /**
+     * A {@link Schedule} maps event counts onto the active meter time they are allowed to pass, at a constant rate
+     * from a base point. It is replaced as a whole whenever the rate changes, so that readers always see a
+     * consistent view of it.
+     */
+    private static class Schedule
+    {
+        /** The rate that events can flow through the meter. */
+        private final FlowRate rate;
+        /** The amount of time between each event, in nanoseconds. */
+        private final double nanosPerEvent;
+        /** The (possibly fractional) event count at the base of the schedule. */
+        private final double basePosition;
+        /** The active meter time at the base of the schedule, in nanoseconds. */
+        private final long baseNanos;
+
+        private Schedule(final FlowRate rate, final double basePosition, final long baseNanos)
+        {
+            super();
+
+            this.rate = rate;
+            this.nanosPerEvent = rate.getDuration().toNanos() / rate.getVolume();
+            this.basePosition = basePosition;
+            this.baseNanos = baseNanos;
+        }
+
+        /**
+         * Calculate the time an event is allowed to pass.
+         *
+         * @param eventCount The event count.
+         * @return The active meter time, in nanoseconds.
+         */
+        private long getTimeOf(final long eventCount)
+        {
+            return this.baseNanos + Math.round((eventCount - this.basePosition) * this.nanosPerEvent);
+        }
 
-        return targetMillis - totalMillis;
+        /**
+         * Calculate the (possibly fractional) event count that is allowed to pass at a given time.
+         *
+         * @param nanos The active meter time, in nanoseconds.
+         * @return The event count.
+         */
+        private double getPositionAt(final long nanos)
+        {
+            return this.basePosition + (nanos - this.baseNanos) / this.nanosPerEvent;
+        }
     }
 }
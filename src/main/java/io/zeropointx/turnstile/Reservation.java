@@ -0,0 +1,188 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link Reservation} is a place in line at a {@link Turnstile}, claimed by {@link Turnstile#reserve(long)}. The
+ * delay imposed by the {@link Meter} is decided when the reservation is made, but the thread is only held once it
+ * calls {@link #await()}. Until then, the reservation can be {@link #cancel() cancelled}. Once it has passed, the
+ * permits can still be {@link #refund() refunded} if the work they paid for never happened. Either way, the permits
+ * are returned to the meter so that later callers are not delayed on account of them.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public final class Reservation
+{
+    /** The {@link Turnstile} the reservation was made at. */
+    private final Turnstile turnstile;
+    /** The sequence number of the last permit of the reserved event. */
+    private final long event;
+    /** The number of permits reserved. */
+    private final long permits;
+    /** The time the reservation is allowed to pass, from {@link System#nanoTime()}. */
+    private final long scheduledNanos;
+    /** The current state of the reservation. */
+    private final AtomicReference<State> state;
+
+    /**
+     * Create a new {@link Reservation}.
+     *
+     * @param turnstile The {@link Turnstile} the reservation was made at.
+     * @param event The sequence number of the last permit of the reserved event.
+     * @param permits The number of permits reserved.
+     * @param scheduledNanos The time the reservation is allowed to pass, from {@link System#nanoTime()}.
+     */
+    Reservation(final Turnstile turnstile, final long event, final long permits, final long scheduledNanos)
+    {
+        super();
+
+        this.turnstile = turnstile;
+        this.event = event;
+        this.permits = permits;
+        this.scheduledNanos = scheduledNanos;
+        this.state = new AtomicReference<>(State.PENDING);
+    }
+
+    /**
+     * Fetch the number of permits reserved.
+     *
+     * @return The number of permits.
+     */
+    public long getPermits()
+    {
+        return this.permits;
+    }
+
+    /**
+     * Fetch the time the reservation is allowed to pass. Any block on the {@link Turnstile} may hold it for
+     * longer.
+     *
+     * @return The scheduled time, as a value of {@link System#nanoTime()}.
+     */
+    public long getScheduledNanos()
+    {
+        return this.scheduledNanos;
+    }
+
+    /**
+     * Fetch the amount of time left before the reservation is allowed to pass.
+     *
+     * @return The remaining delay, or {@link Duration#ZERO} if the scheduled time has been reached.
+     */
+    public Duration getDelay()
+    {
+        return Duration.ofNanos(Math.max(0L, this.scheduledNanos - System.nanoTime()));
+    }
+
+    /**
+     * Check to see if the reservation has passed the {@link Turnstile}. A refunded reservation still counts as
+     * having passed.
+     *
+     * @return {@code true} if {@link #await()} has completed, {@code false} otherwise.
+     */
+    public boolean isPassed()
+    {
+        final State current = this.state.get();
+        return current == State.PASSED || current == State.REFUNDED;
+    }
+
+    /**
+     * Check to see if the reservation was cancelled before it passed.
+     *
+     * @return {@code true} if the reservation was cancelled, {@code false} otherwise.
+     */
+    public boolean isCancelled()
+    {
+        return this.state.get() == State.CANCELLED;
+    }
+
+    /**
+     * Hold the current thread until the reservation is allowed to pass and the {@link Turnstile} is not blocked,
+     * then record its passage. This returns immediately if the reservation has already passed. If the thread is
+     * interrupted, the reservation is left pending, so it can be awaited again or cancelled.
+     *
+     * @throws InterruptedException If the thread is interrupted while being held.
+     * @throws CancellationException If the reservation was cancelled.
+     */
+    public void await() throws InterruptedException
+    {
+        if (this.isPassed()) return;
+        if (this.isCancelled()) throw new CancellationException("The reservation was cancelled.");
+
+        this.turnstile.holdReservation(this.scheduledNanos - System.nanoTime());
+
+        if (!this.state.compareAndSet(State.PENDING, State.PASSED))
+        {
+            if (this.isCancelled()) throw new CancellationException("The reservation was cancelled.");
+            return;
+        }
+        this.turnstile.observeReservation(this.event, this.permits);
+    }
+
+    /**
+     * Cancel the reservation before it passes, returning its permits to the {@link Meter}. The event is no longer
+     * counted by the {@link Turnstile} and never shows up in its observed rates.
+     *
+     * @return {@code true} if the reservation was cancelled, {@code false} if it had already passed or been
+     * cancelled.
+     */
+    public boolean cancel()
+    {
+        if (!this.state.compareAndSet(State.PENDING, State.CANCELLED)) return false;
+
+        this.turnstile.withdraw(this.event, this.permits);
+        return true;
+    }
+
+    /**
+     * Return the permits of a reservation which has already passed to the {@link Meter}, because the work they
+     * paid for never happened. The passage has already been observed, so it is still counted by the
+     * {@link Turnstile}.
+     *
+     * @return {@code true} if the permits were refunded, {@code false} if the reservation hadn't passed or was
+     * already refunded.
+     */
+    public boolean refund()
+    {
+        if (!this.state.compareAndSet(State.PASSED, State.REFUNDED)) return false;
+
+        this.turnstile.refund(this.event, this.permits);
+        return true;
+    }
+
+    /**
+     * The states a {@link Reservation} moves through.
+     */
+    private enum State
+    {
+        /** Reserved, but not passed yet. */
+        PENDING,
+        /** Passed the turnstile. */
+        PASSED,
+        /** Cancelled before passing. */
+        CANCELLED,
+        /** Passed the turnstile, then refunded. */
+        REFUNDED,
+    }
+}
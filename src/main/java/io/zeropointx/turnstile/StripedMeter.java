@@ -0,0 +1,335 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import com.google.common.base.Preconditions;
+import io.zeropointx.time.DefaultTimeProvider;
+import io.zeropointx.time.TimeProvider;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link StripedMeter} splits a {@link FlowRate} evenly across a number of independent stripes, each of which
+ * paces its share of events in the same way as a {@link GcraMeter}. Each thread has a home stripe, and as long as
+ * its home stripe has capacity to spare, an event only touches the state of that one stripe. This spreads the
+ * contention of many threads across many memory locations instead of a single shared counter.
+ * <p>
+ * When the home stripe is busy, the event is rebalanced onto whichever stripe can take it soonest. Capacity left
+ * unused by quiet stripes therefore flows to the busy ones, and under sustained load the meter behaves like a
+ * single {@link GcraMeter} at the full rate.
+ * <p>
+ * <em>Error bound:</em> Each stripe never exceeds its share of the rate, so the aggregate never exceeds the configured
+ * rate over the long term. Over any window of time, however, up to one event per stripe may pass ahead of the
+ * aggregate schedule, since every idle stripe will admit its next event immediately. Over a window of length
+ * {@code W}, at most {@code rate * W + stripes} events are admitted.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class StripedMeter extends Meter
+{
+    /** The spacing between stripes in the state array, chosen to keep each stripe on its own cache line. */
+    private static final int STRIPE_PADDING = 16;
+
+    /** The rate that events can flow through the meter, across all stripes. */
+    private volatile FlowRate rate;
+    /** The number of stripes the rate is split across. */
+    private final int stripes;
+    /** The amount of time between events on a single stripe, in nanoseconds. */
+    private volatile long stripeInterval;
+    /** The theoretical arrival time of the next event on each stripe, as nanoseconds of active meter time. */
+    private final AtomicLongArray arrivalTimes;
+
+    /**
+     * Create a new {@link StripedMeter} with one stripe per available processor.
+     *
+     * @param rate The {@link FlowRate} to restrict events to.
+     */
+    public StripedMeter(final FlowRate rate)
+    {
+        this(rate, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a new {@link StripedMeter}.
+     *
+     * @param rate The {@link FlowRate} to restrict events to.
+     * @param stripes The number of stripes to split the rate across.
+     */
+    public StripedMeter(final FlowRate rate, final int stripes)
+    {
+        this(rate, stripes, DefaultTimeProvider.getDefault());
+    }
+
+    /**
+     * Create a new {@link StripedMeter}, measuring time with the supplied {@link TimeProvider}.
+     *
+     * @param rate The {@link FlowRate} to restrict events to.
+     * @param stripes The number of stripes to split the rate across.
+     * @param timeProvider The {@link TimeProvider} to use as the meter's clock.
+     */
+    public StripedMeter(final FlowRate rate, final int stripes, final TimeProvider timeProvider)
+    {
+        super(timeProvider);
+
+        Preconditions.checkArgument(stripes > 0, "Stripe count must be positive.");
+
+        this.rate = rate;
+        this.stripes = stripes;
+        this.stripeInterval = StripedMeter.intervalFor(rate, stripes);
+        this.arrivalTimes = new AtomicLongArray(stripes * StripedMeter.STRIPE_PADDING);
+
+        this.reset();
+    }
+
+    /**
+     * Fetch the number of stripes the rate is split across.
+     *
+     * @return The number of stripes.
+     */
+    public int getStripeCount()
+    {
+        return this.stripes;
+    }
+
+    @Override
+    protected Optional<FlowRate> getFlowRate()
+    {
+        return Optional.of(this.rate);
+    }
+
+    /**
+     * Calculate the interval between events on a single stripe.
+     *
+     * @param rate The {@link FlowRate} across all stripes.
+     * @param stripes The number of stripes.
+     * @return The interval in nanoseconds.
+     */
+    private static long intervalFor(final FlowRate rate, final int stripes)
+    {
+        return Math.round(stripes * (rate.getDuration().toNanos() / rate.getVolume()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The theoretical arrival time of each stripe is moved so that its next event is spaced from its most recently
+     * claimed one at the new rate. An event racing with the change may still be spaced at the old rate.
+     */
+    @Override
+    protected synchronized void setRate(final FlowRate rate)
+    {
+        final long interval = StripedMeter.intervalFor(rate, this.stripes);
+        final long change = interval - this.stripeInterval;
+
+        for (int stripe = 0; stripe < this.stripes; stripe++)
+        {
+            while (true)
+            {
+                final long arrival = this.getArrivalTime(stripe);
+                if (arrival == 0L) break;
+                final int index = stripe * StripedMeter.STRIPE_PADDING;
+                if (this.arrivalTimes.compareAndSet(index, arrival, arrival + change)) break;
+            }
+        }
+
+        this.rate = rate;
+        this.stripeInterval = interval;
+    }
+
+    @Override
+    protected void reset()
+    {
+        super.reset();
+
+        for (int stripe = 0; stripe < this.stripes; stripe++)
+        {
+            this.arrivalTimes.set(stripe * StripedMeter.STRIPE_PADDING, 0L);
+        }
+    }
+
+    @Override
+    protected boolean isConcurrent()
+    {
+        return true;
+    }
+
+    /**
+     * Fetch the stripe that the current thread prefers to use.
+     *
+     * @return The index of the stripe.
+     */
+    private int getHomeStripe()
+    {
+        return (int)(Thread.currentThread().getId() % this.stripes);
+    }
+
+    /**
+     * Fetch the theoretical arrival time of the next event on a stripe.
+     *
+     * @param stripe The index of the stripe.
+     * @return The arrival time, as nanoseconds of active meter time.
+     */
+    private long getArrivalTime(final int stripe)
+    {
+        return this.arrivalTimes.get(stripe * StripedMeter.STRIPE_PADDING);
+    }
+
+    /**
+     * Attempt to claim the next slot on a stripe.
+     *
+     * @param stripe The index of the stripe.
+     * @param arrival The arrival time the stripe is expected to have.
+     * @param scheduled The time the first permit of the event is scheduled to pass.
+     * @param interval The spacing between permits on the stripe.
+     * @param permits The number of permits the event is weighted with.
+     * @return {@code true} if the slots were claimed, {@code false} if the stripe had changed.
+     */
+    private boolean claimStripe(final int stripe, final long arrival, final long scheduled, final long interval,
+                                final long permits)
+    {
+        return this.arrivalTimes.compareAndSet(stripe * StripedMeter.STRIPE_PADDING, arrival,
+                                               scheduled + permits * interval);
+    }
+
+    @Override
+    protected long getDelayFor(final long eventCount)
+    {
+        return Meter.toMillis(this.getDelayNanosFor(eventCount));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The delay is calculated for the next event to claim a slot on any stripe, regardless of the event count
+     * supplied.
+     */
+    @Override
+    protected long getDelayNanosFor(final long eventCount)
+    {
+        return this.getDelayNanosFor(eventCount, 1L);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The delay is calculated for the next event to claim its slots on any stripe, regardless of the event count
+     * supplied. All the permits of an event are claimed from a single stripe.
+     */
+    @Override
+    protected long getDelayNanosFor(final long eventCount, final long permits)
+    {
+        long earliest = Long.MAX_VALUE;
+        for (int stripe = 0; stripe < this.stripes; stripe++)
+        {
+            earliest = Math.min(earliest, this.getArrivalTime(stripe));
+        }
+
+        return Math.max(0L, earliest - this.getActiveNanos()) + (permits - 1) * this.stripeInterval;
+    }
+
+    @Override
+    protected long claim(final long eventCount)
+    {
+        return this.tryClaim(eventCount, 1L, Long.MAX_VALUE);
+    }
+
+    @Override
+    protected long claim(final long eventCount, final long permits)
+    {
+        return this.tryClaim(eventCount, permits, Long.MAX_VALUE);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The stripe an event was claimed from isn't tracked, so the permits are returned to whichever stripe is
+     * booked the furthest ahead.
+     */
+    @Override
+    protected void refund(final long eventCount, final long permits)
+    {
+        while (true)
+        {
+            int latest = 0;
+            long latestArrival = this.getArrivalTime(0);
+            for (int stripe = 1; stripe < this.stripes; stripe++)
+            {
+                final long arrival = this.getArrivalTime(stripe);
+                if (arrival > latestArrival)
+                {
+                    latest = stripe;
+                    latestArrival = arrival;
+                }
+            }
+
+            final long now = this.getActiveNanos();
+            final long refunded = Math.max(now, latestArrival - permits * this.stripeInterval);
+            if (refunded >= latestArrival) return;
+            if (this.arrivalTimes.compareAndSet(latest * StripedMeter.STRIPE_PADDING, latestArrival, refunded)) return;
+        }
+    }
+
+    @Override
+    protected long tryClaim(final long eventCount, final long maxDelay)
+    {
+        return this.tryClaim(eventCount, 1L, maxDelay);
+    }
+
+    @Override
+    protected long tryClaim(final long eventCount, final long permits, final long maxDelay)
+    {
+        final int home = this.getHomeStripe();
+        final long interval = this.stripeInterval;
+        final long spread = (permits - 1) * interval;
+
+        // Fast path: only the home stripe is touched while it has capacity to spare
+        while (spread <= maxDelay)
+        {
+            final long now = this.getActiveNanos();
+            final long arrival = this.getArrivalTime(home);
+            if (arrival > now) break;
+            if (this.claimStripe(home, arrival, now, interval, permits)) return spread;
+        }
+
+        // Rebalance onto whichever stripe can take the event soonest
+        while (true)
+        {
+            int best = home;
+            long bestArrival = this.getArrivalTime(home);
+            for (int stripe = 0; stripe < this.stripes; stripe++)
+            {
+                final long arrival = this.getArrivalTime(stripe);
+                if (arrival < bestArrival)
+                {
+                    best = stripe;
+                    bestArrival = arrival;
+                }
+            }
+
+            final long now = this.getActiveNanos();
+            final long scheduled = Math.max(now, bestArrival);
+            final long delay = scheduled + spread - now;
+
+            if (delay > maxDelay) return Meter.REJECTED;
+            if (this.claimStripe(best, bestArrival, scheduled, interval, permits)) return delay;
+        }
+    }
+}
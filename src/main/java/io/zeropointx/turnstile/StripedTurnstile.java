@@ -0,0 +1,83 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+/**
+ * A {@link StripedTurnstile} is a {@link Turnstile} built for heavy contention from many threads. Its rate is split
+ * across a number of stripes by a {@link StripedMeter}, so that threads can usually be admitted by touching only
+ * the state of their own stripe. Since the meter is concurrent, threads are never serialized while they wait.
+ * <p>
+ * The count of events is striped in the same way, so no state is shared by every passing thread. Each stripe hands
+ * out its own interleaved sequence numbers, which are unique but only roughly in the order events passed. Since
+ * gaps between them say nothing about missing events, the {@link TurnstileObserver} numbers events consecutively
+ * in the order it observes them instead, so its rates and counts and {@link #getEventsSeen()} stay exact.
+ * <p>
+ * The aggregate rate is respected within the error bound documented on {@link StripedMeter}: over any window,
+ * at most one event per stripe may pass ahead of the configured rate.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class StripedTurnstile extends Turnstile
+{
+    private final StripedMeter stripedMeter;
+
+    /**
+     * Create a new {@link StripedTurnstile} with one stripe per available processor.
+     *
+     * @param rate The {@link FlowRate} to restrict events to.
+     */
+    public StripedTurnstile(final FlowRate rate)
+    {
+        this(new StripedMeter(rate));
+    }
+
+    /**
+     * Create a new {@link StripedTurnstile}.
+     *
+     * @param rate The {@link FlowRate} to restrict events to.
+     * @param stripes The number of stripes to split the rate across.
+     */
+    public StripedTurnstile(final FlowRate rate, final int stripes)
+    {
+        this(new StripedMeter(rate, stripes));
+    }
+
+    /**
+     * Create a new {@link StripedTurnstile} with the supplied meter.
+     *
+     * @param meter The {@link StripedMeter} which controls the policy over how often events pass.
+     */
+    public StripedTurnstile(final StripedMeter meter)
+    {
+        super(meter, new TurnstileObserver(), false, EventCounter.striped(meter.getStripeCount()));
+
+        this.stripedMeter = meter;
+    }
+
+    /**
+     * Fetch the number of stripes the rate is split across.
+     *
+     * @return The number of stripes.
+     */
+    public int getStripeCount()
+    {
+        return this.stripedMeter.getStripeCount();
+    }
+}
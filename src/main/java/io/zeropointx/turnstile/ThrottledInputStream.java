@@ -0,0 +1,78 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link ThrottledInputStream} limits the rate that bytes can be read from another {@link InputStream}. Every
+ * byte read passes the supplied {@link Turnstile} as one permit, so its rate is measured in bytes. Reads are
+ * limited to chunks sized to the rate, and each chunk is charged once it has been read, since the number of bytes
+ * isn't known until then.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class ThrottledInputStream extends FilterInputStream
+{
+    /** The {@link Turnstile} that limits the rate of reads. */
+    private final Turnstile turnstile;
+
+    /**
+     * Create a new {@link ThrottledInputStream}.
+     *
+     * @param in The {@link InputStream} to read from.
+     * @param turnstile The {@link Turnstile} that limits the rate of reads, in bytes.
+     */
+    public ThrottledInputStream(final InputStream in, final Turnstile turnstile)
+    {
+        super(in);
+
+        this.turnstile = turnstile;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        final int value = super.read();
+        if (value >= 0) Throttling.charge(this.turnstile, 1L);
+
+        return value;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException
+    {
+        final int read = super.read(b, off, Math.min(len, Throttling.getChunkSize(this.turnstile)));
+        Throttling.charge(this.turnstile, read);
+
+        return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException
+    {
+        final long skipped = super.skip(Math.min(n, Throttling.getChunkSize(this.turnstile)));
+        Throttling.charge(this.turnstile, skipped);
+
+        return skipped;
+    }
+}
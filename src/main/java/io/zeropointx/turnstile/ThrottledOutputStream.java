@@ -0,0 +1,71 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link ThrottledOutputStream} limits the rate that bytes can be written to another {@link OutputStream}.
+ * Every byte written passes the supplied {@link Turnstile} as one permit, so its rate is measured in bytes. Large
+ * writes are split into chunks sized to the rate, and each chunk is charged before it is written.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class ThrottledOutputStream extends FilterOutputStream
+{
+    /** The {@link Turnstile} that limits the rate of writes. */
+    private final Turnstile turnstile;
+
+    /**
+     * Create a new {@link ThrottledOutputStream}.
+     *
+     * @param out The {@link OutputStream} to write to.
+     * @param turnstile The {@link Turnstile} that limits the rate of writes, in bytes.
+     */
+    public ThrottledOutputStream(final OutputStream out, final Turnstile turnstile)
+    {
+        super(out);
+
+        this.turnstile = turnstile;
+    }
+
+    @Override
+    public void write(final int b) throws IOException
+    {
+        Throttling.charge(this.turnstile, 1L);
+        this.out.write(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException
+    {
+        int written = 0;
+        while (written < len)
+        {
+            final int chunk = Math.min(len - written, Throttling.getChunkSize(this.turnstile));
+            Throttling.charge(this.turnstile, chunk);
+            this.out.write(b, off + written, chunk);
+
+            written += chunk;
+        }
+    }
+}
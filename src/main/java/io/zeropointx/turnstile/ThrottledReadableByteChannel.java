@@ -0,0 +1,86 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A {@link ThrottledReadableByteChannel} limits the rate that bytes can be read from another
+ * {@link ReadableByteChannel}. Every byte read passes the supplied {@link Turnstile} as one permit, so its rate is
+ * measured in bytes. Each read is limited to a chunk sized to the rate, and is charged once it has been read.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class ThrottledReadableByteChannel implements ReadableByteChannel
+{
+    /** The channel to read from. */
+    private final ReadableByteChannel channel;
+    /** The {@link Turnstile} that limits the rate of reads. */
+    private final Turnstile turnstile;
+
+    /**
+     * Create a new {@link ThrottledReadableByteChannel}.
+     *
+     * @param channel The {@link ReadableByteChannel} to read from.
+     * @param turnstile The {@link Turnstile} that limits the rate of reads, in bytes.
+     */
+    public ThrottledReadableByteChannel(final ReadableByteChannel channel, final Turnstile turnstile)
+    {
+        super();
+
+        this.channel = channel;
+        this.turnstile = turnstile;
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException
+    {
+        final int limit = dst.limit();
+        final int chunk = Throttling.getChunkSize(this.turnstile);
+        if (dst.remaining() > chunk) dst.limit(dst.position() + chunk);
+
+        final int read;
+        try
+        {
+            read = this.channel.read(dst);
+        }
+        finally
+        {
+            dst.limit(limit);
+        }
+
+        Throttling.charge(this.turnstile, read);
+        return read;
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return this.channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.channel.close();
+    }
+}
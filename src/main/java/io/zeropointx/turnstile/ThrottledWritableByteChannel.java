@@ -0,0 +1,94 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A {@link ThrottledWritableByteChannel} limits the rate that bytes can be written to another
+ * {@link WritableByteChannel}. Every byte written passes the supplied {@link Turnstile} as one permit, so its rate
+ * is measured in bytes. Each write is limited to a chunk sized to the rate, and is charged before it is written.
+ * If a non-blocking channel accepts fewer bytes than were charged, the difference is credited to the next write.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class ThrottledWritableByteChannel implements WritableByteChannel
+{
+    /** The channel to write to. */
+    private final WritableByteChannel channel;
+    /** The {@link Turnstile} that limits the rate of writes. */
+    private final Turnstile turnstile;
+    /** The number of bytes which have been charged but not written yet. */
+    private long prepaid;
+
+    /**
+     * Create a new {@link ThrottledWritableByteChannel}.
+     *
+     * @param channel The {@link WritableByteChannel} to write to.
+     * @param turnstile The {@link Turnstile} that limits the rate of writes, in bytes.
+     */
+    public ThrottledWritableByteChannel(final WritableByteChannel channel, final Turnstile turnstile)
+    {
+        super();
+
+        this.channel = channel;
+        this.turnstile = turnstile;
+    }
+
+    @Override
+    public synchronized int write(final ByteBuffer src) throws IOException
+    {
+        final int limit = src.limit();
+        final int chunk = Math.min(src.remaining(), Throttling.getChunkSize(this.turnstile));
+        if (this.prepaid < chunk)
+        {
+            Throttling.charge(this.turnstile, chunk - this.prepaid);
+            this.prepaid = chunk;
+        }
+
+        src.limit(src.position() + chunk);
+        final int written;
+        try
+        {
+            written = this.channel.write(src);
+        }
+        finally
+        {
+            src.limit(limit);
+        }
+
+        this.prepaid -= written;
+        return written;
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return this.channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.channel.close();
+    }
+}
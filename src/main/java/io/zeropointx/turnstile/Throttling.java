@@ -0,0 +1,136 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Optional;
+
+/**
+ * Helpers for throttling byte streams with a {@link Turnstile}, where each byte is one permit. The throttled
+ * streams and channels in this package are built on these, and {@link #transferTo(FileChannel, long, long,
+ * WritableByteChannel, Turnstile)} throttles a zero-copy file transfer directly.
+ * <p>
+ * Data is moved in chunks sized to the turnstile's rate, so that each chunk takes about
+ * {@value #CHUNK_MILLIS}ms of the rate. This keeps slow rates from being paced in bursts of large writes and fast
+ * rates from being paced with a flood of tiny ones.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public final class Throttling
+{
+    /** The amount of time, in milliseconds, that each chunk should take at the turnstile's rate. */
+    static final int CHUNK_MILLIS = 10;
+    /** The smallest chunk ever moved at once, in bytes. */
+    static final int MIN_CHUNK = 512;
+    /** The largest chunk ever moved at once, in bytes. */
+    static final int MAX_CHUNK = 1024 * 1024;
+    /** The chunk size used when the turnstile isn't governed by a single rate, in bytes. */
+    static final int DEFAULT_CHUNK = 64 * 1024;
+
+    private Throttling()
+    {
+        super();
+    }
+
+    /**
+     * Calculate the number of bytes to move at once through the supplied {@link Turnstile}. This is recalculated
+     * for every chunk, so that it follows any change to the turnstile's rate.
+     *
+     * @param turnstile The {@link Turnstile} throttling the data.
+     * @return The chunk size, in bytes.
+     */
+    static int getChunkSize(final Turnstile turnstile)
+    {
+        final Optional<FlowRate> rate = turnstile.getFlowRate();
+        if (!rate.isPresent()) return Throttling.DEFAULT_CHUNK;
+
+        final double chunk = rate.get().getVolumePerSecond() * Throttling.CHUNK_MILLIS / 1000d;
+        return (int)Math.max(Throttling.MIN_CHUNK, Math.min(Throttling.MAX_CHUNK, chunk));
+    }
+
+    /**
+     * Pass the supplied {@link Turnstile} with one permit per byte, reporting interruption the way blocking I/O
+     * does. The thread's interrupt status is restored before the exception is thrown.
+     *
+     * @param turnstile The {@link Turnstile} throttling the data.
+     * @param bytes The number of bytes to charge. Nothing is charged for zero or fewer.
+     * @throws InterruptedIOException If the thread is interrupted while being throttled.
+     */
+    static void charge(final Turnstile turnstile, final long bytes) throws InterruptedIOException
+    {
+        if (bytes <= 0) return;
+
+        try
+        {
+            turnstile.pass(bytes);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while throttling I/O.");
+        }
+    }
+
+    /**
+     * Transfer bytes from a file to a channel with {@link FileChannel#transferTo(long, long, WritableByteChannel)},
+     * throttled by the supplied {@link Turnstile}. The transfer is split into chunks sized to the turnstile's rate,
+     * and each chunk is charged before it is transferred, so the data itself is still never copied through the
+     * Java heap.
+     * <p>
+     * As with {@link FileChannel#transferTo(long, long, WritableByteChannel)}, fewer bytes than requested are
+     * transferred if the file ends or a non-blocking target stops accepting data. Bytes which were charged but not
+     * transferred are credited against later chunks of the same call.
+     *
+     * @param source The {@link FileChannel} to read from.
+     * @param position The position in the file to start transferring from.
+     * @param count The most bytes to transfer.
+     * @param target The {@link WritableByteChannel} to write to.
+     * @param turnstile The {@link Turnstile} throttling the transfer.
+     * @return The number of bytes transferred.
+     * @throws IOException If the transfer fails, or the thread is interrupted while being throttled.
+     */
+    public static long transferTo(final FileChannel source, final long position, final long count,
+                                  final WritableByteChannel target, final Turnstile turnstile) throws IOException
+    {
+        long transferred = 0L;
+        long prepaid = 0L;
+
+        while (transferred < count)
+        {
+            final long chunk = Math.min(count - transferred, Throttling.getChunkSize(turnstile));
+            if (prepaid < chunk)
+            {
+                Throttling.charge(turnstile, chunk - prepaid);
+                prepaid = chunk;
+            }
+
+            final long moved = source.transferTo(position + transferred, chunk, target);
+            if (moved <= 0) break;
+
+            transferred += moved;
+            prepaid -= moved;
+        }
+
+        return transferred;
+    }
+}
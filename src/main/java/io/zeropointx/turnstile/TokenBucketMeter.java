@@ -0,0 +1,237 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import com.google.common.base.Preconditions;
+import io.zeropointx.time.DefaultTimeProvider;
+import io.zeropointx.time.TimeProvider;
+
+import java.util.Optional;
+
+/**
+ * A {@link TokenBucketMeter} restricts events using a classic token bucket. The bucket holds up to a fixed number
+ * of tokens and is refilled continuously at the configured {@link FlowRate}. Each event takes a single token. As long
+ * as tokens remain in the bucket, events pass with no delay at all, allowing bursts up to the size of the bucket. Once
+ * the bucket is empty, events are delayed until enough time has passed to refill the token they need.
+ * <p>
+ * The bucket starts out full. Events that cannot be satisfied immediately still take their token, leaving the
+ * bucket in debt, so that later events queue up behind them in order.
+ * <p>
+ * All state is updated under the meter's own monitor, which is never held while an event is delayed. This makes the
+ * meter concurrent: a {@link Turnstile} will let threads wait for their delays in parallel.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class TokenBucketMeter extends Meter
+{
+    /** The rate that tokens are added to the bucket. */
+    private volatile FlowRate rate;
+    /** The maximum number of tokens the bucket can hold. */
+    private final long capacity;
+    /** The amount of time it takes to add a single token to the bucket, in nanoseconds. */
+    private double nanosPerToken;
+
+    /** The number of tokens in the bucket as of the last refill. This is negative if the bucket is in debt. */
+    private double tokens;
+    /** The active meter time of the last refill, in nanoseconds. */
+    private long lastRefill;
+
+    /**
+     * Create a new {@link TokenBucketMeter}.
+     *
+     * @param rate The {@link FlowRate} that tokens are added to the bucket.
+     * @param capacity The maximum number of tokens the bucket can hold. This is the largest burst of events that
+     * will be allowed to pass without delay.
+     */
+    public TokenBucketMeter(final FlowRate rate, final long capacity)
+    {
+        this(rate, capacity, DefaultTimeProvider.getDefault());
+    }
+
+    /**
+     * Create a new {@link TokenBucketMeter}, measuring time with the supplied {@link TimeProvider}.
+     *
+     * @param rate The {@link FlowRate} that tokens are added to the bucket.
+     * @param capacity The maximum number of tokens the bucket can hold. This is the largest burst of events that
+     * will be allowed to pass without delay.
+     * @param timeProvider The {@link TimeProvider} to use as the meter's clock.
+     */
+    public TokenBucketMeter(final FlowRate rate, final long capacity, final TimeProvider timeProvider)
+    {
+        super(timeProvider);
+
+        Preconditions.checkArgument(capacity > 0, "Bucket capacity must be positive.");
+
+        this.rate = rate;
+        this.capacity = capacity;
+        this.nanosPerToken = this.rate.getDuration().toNanos() / this.rate.getVolume();
+
+        this.reset();
+    }
+
+    /**
+     * Create a new {@link TokenBucketMeter}.
+     *
+     * @param rateDescription A {@link String} describing the refill rate, in the format accepted by {@link FlowRate}.
+     * @param capacity The maximum number of tokens the bucket can hold.
+     * @see FlowRate#FlowRate(CharSequence)
+     */
+    public TokenBucketMeter(final CharSequence rateDescription, final long capacity)
+    {
+        this(new FlowRate(rateDescription), capacity);
+    }
+
+    /**
+     * Fetch the maximum number of tokens the bucket can hold.
+     *
+     * @return The capacity of the bucket.
+     */
+    public long getCapacity()
+    {
+        return this.capacity;
+    }
+
+    @Override
+    protected Optional<FlowRate> getFlowRate()
+    {
+        return Optional.of(this.rate);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The bucket is refilled at the old rate up to the current moment, and refills at the new rate from then on.
+     * Any debt owed by waiting events is carried over.
+     */
+    @Override
+    protected synchronized void setRate(final FlowRate rate)
+    {
+        final long now = this.getActiveNanos();
+        this.tokens = this.getTokensAt(now);
+        this.lastRefill = now;
+
+        this.rate = rate;
+        this.nanosPerToken = rate.getDuration().toNanos() / rate.getVolume();
+    }
+
+    @Override
+    protected synchronized void reset()
+    {
+        super.reset();
+
+        this.tokens = this.capacity;
+        this.lastRefill = 0L;
+    }
+
+    @Override
+    protected boolean isConcurrent()
+    {
+        return true;
+    }
+
+    /**
+     * Calculate the number of tokens in the bucket at the given time. This must be called while holding the
+     * meter's monitor.
+     *
+     * @param now The active meter time, in nanoseconds.
+     * @return The number of tokens, which may be negative if the bucket is in debt.
+     */
+    private double getTokensAt(final long now)
+    {
+        return Math.min(this.capacity, this.tokens + ((now - this.lastRefill) / this.nanosPerToken));
+    }
+
+    /**
+     * Calculate the amount of time needed to bring the bucket up from the given number of tokens to zero.
+     *
+     * @param tokens The number of tokens left in the bucket after taking the tokens for an event.
+     * @return The delay in nanoseconds.
+     */
+    private long getRefillDelay(final double tokens)
+    {
+        return (tokens >= 0) ? 0L : (long)Math.ceil(-tokens * this.nanosPerToken);
+    }
+
+    @Override
+    protected long getDelayFor(final long eventCount)
+    {
+        return Meter.toMillis(this.getDelayNanosFor(eventCount));
+    }
+
+    @Override
+    protected long getDelayNanosFor(final long eventCount)
+    {
+        return this.getDelayNanosFor(eventCount, 1L);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The delay is calculated for the next event to take its tokens, regardless of the event count supplied. An
+     * event weighted with more permits than the bucket can hold puts the bucket into debt.
+     */
+    @Override
+    protected synchronized long getDelayNanosFor(final long eventCount, final long permits)
+    {
+        return this.getRefillDelay(this.getTokensAt(this.getActiveNanos()) - permits);
+    }
+
+    @Override
+    protected long claim(final long eventCount)
+    {
+        return this.tryClaim(eventCount, 1L, Long.MAX_VALUE);
+    }
+
+    @Override
+    protected long claim(final long eventCount, final long permits)
+    {
+        return this.tryClaim(eventCount, permits, Long.MAX_VALUE);
+    }
+
+    @Override
+    protected synchronized void refund(final long eventCount, final long permits)
+    {
+        final long now = this.getActiveNanos();
+
+        this.tokens = Math.min(this.capacity, this.getTokensAt(now) + permits);
+        this.lastRefill = now;
+    }
+
+    @Override
+    protected long tryClaim(final long eventCount, final long maxDelay)
+    {
+        return this.tryClaim(eventCount, 1L, maxDelay);
+    }
+
+    @Override
+    protected synchronized long tryClaim(final long eventCount, final long permits, final long maxDelay)
+    {
+        final long now = this.getActiveNanos();
+        final double remaining = this.getTokensAt(now) - permits;
+        final long delay = this.getRefillDelay(remaining);
+
+        if (delay > maxDelay) return Meter.REJECTED;
+
+        this.tokens = remaining;
+        this.lastRefill = now;
+
+        return delay;
+    }
+}
@@ -19,15 +19,34 @@
 package io.zeropointx.turnstile;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.StampedLock;
 
 /**
  * A {@link Turnstile} is a rate limiting device that checks and potentially blocks thread execution in order
  * to restrict the flow of events to match a desired goal.
+ * <p>
+ * Unless its {@link Meter} is concurrent, a turnstile admits events one at a time. By default, a thread arriving
+ * at the turnstile may barge ahead of threads which are already waiting to be admitted, which gives the best
+ * throughput. A <em>fair</em> turnstile instead admits waiting threads strictly in the order they arrived, which
+ * bounds how long any one thread can be passed over at a small cost in throughput under contention.
  *
  * @author jeff@darkware.org
  * @since 2017-05-01
@@ -37,11 +56,23 @@ public class Turnstile
     protected final static Logger log = LoggerFactory.getLogger("Turnstile");
 
     private final StampedLock block;
-    private Long blockId;
+    private volatile Long blockId;
+    /** Asynchronous passages which are waiting for a block to be lifted. */
+    private final Queue<Runnable> blockedWaiters;
 
     private final Meter meter;
     private final TurnstileObserver observer;
-    private final AtomicLong eventCount;
+    private final EventCounter eventCount;
+    /** The lock which serializes admission of events when the {@link Meter} is not concurrent. */
+    private final ReentrantLock admission;
+    /** Whether the admission lock is held by a thread which is being held for its delay. */
+    private volatile boolean delaying;
+    /** The number of permits counted for events which never passed. */
+    private final LongAdder withdrawn;
+    /** The number of events rejected by {@code tryPass} methods. */
+    private final LongAdder rejected;
+    /** The number of events currently waiting to pass. */
+    private final LongAdder waiters;
 
     /**
      * Create a new {@link Turnstile} with the configured {@link Meter}.
@@ -49,15 +80,74 @@ public class Turnstile
      * @param meter An object which controls the policy over how often events pass.
      */
     public Turnstile(final Meter meter)
+    {
+        this(meter, new TurnstileObserver());
+    }
+
+    /**
+     * Create a new {@link Turnstile} with the configured {@link Meter}, reporting passed events to the supplied
+     * {@link TurnstileObserver}. Supplying a deferred observer keeps the cost of collecting statistics on the
+     * passing thread to a minimum.
+     *
+     * @param meter An object which controls the policy over how often events pass.
+     * @param observer The {@link TurnstileObserver} which records metrics for this turnstile.
+     */
+    public Turnstile(final Meter meter, final TurnstileObserver observer)
+    {
+        this(meter, observer, false);
+    }
+
+    /**
+     * Create a new {@link Turnstile} with the configured {@link Meter}, optionally admitting waiting threads in
+     * the order they arrived.
+     *
+     * @param meter An object which controls the policy over how often events pass.
+     * @param fair {@code true} to admit waiting threads in arrival order, {@code false} to allow barging.
+     */
+    public Turnstile(final Meter meter, final boolean fair)
+    {
+        this(meter, new TurnstileObserver(), fair);
+    }
+
+    /**
+     * Create a new {@link Turnstile} with the configured {@link Meter}, reporting passed events to the supplied
+     * {@link TurnstileObserver} and optionally admitting waiting threads in the order they arrived. Fairness only
+     * matters for meters which are not concurrent, since concurrent meters never make threads wait for each
+     * other to be admitted.
+     *
+     * @param meter An object which controls the policy over how often events pass.
+     * @param observer The {@link TurnstileObserver} which records metrics for this turnstile.
+     * @param fair {@code true} to admit waiting threads in arrival order, {@code false} to allow barging.
+     */
+    public Turnstile(final Meter meter, final TurnstileObserver observer, final boolean fair)
+    {
+        this(meter, observer, fair, EventCounter.shared());
+    }
+
+    /**
+     * Create a new {@link Turnstile} which counts its events with the supplied {@link EventCounter}.
+     *
+     * @param meter An object which controls the policy over how often events pass.
+     * @param observer The {@link TurnstileObserver} which records metrics for this turnstile.
+     * @param fair {@code true} to admit waiting threads in arrival order, {@code false} to allow barging.
+     * @param eventCount The {@link EventCounter} which counts events and hands out their sequence numbers.
+     */
+    Turnstile(final Meter meter, final TurnstileObserver observer, final boolean fair, final EventCounter eventCount)
     {
         super();
 
         this.block = new StampedLock();
-        this.observer = new TurnstileObserver();
+        this.blockedWaiters = new ConcurrentLinkedQueue<>();
+        this.observer = observer;
 
         this.meter = meter;
+        this.meter.recordDelaysTo(observer.getMeterDelayHistogram());
 
-        this.eventCount = new AtomicLong(0L);
+        this.eventCount = eventCount;
+        this.admission = new ReentrantLock(fair);
+        this.withdrawn = new LongAdder();
+        this.rejected = new LongAdder();
+        this.waiters = new LongAdder();
         this.reset();
     }
 
@@ -67,20 +157,56 @@ public class Turnstile
      */
     public void reset()
     {
-        this.eventCount.set(0L);
+        this.eventCount.reset();
+        this.withdrawn.reset();
+        this.observer.observeReset();
         this.meter.reset();
         this.unblock();
     }
 
     /**
      * Fetch the number of events that have entered the {@link Turnstile}. This includes any event that might
-     * currently be controlled by the restriction policy of a {@link Meter}.
+     * currently be controlled by the restriction policy of a {@link Meter}. Events weighted with several permits
+     * are counted once for each permit. Events which will never pass, because they were cancelled or their thread
+     * was interrupted, are not counted.
      *
      * @return The number of events as a {@code long}.
      */
     public long getEventsSeen()
     {
-        return this.eventCount.get();
+        return this.eventCount.get() - this.withdrawn.sum();
+    }
+
+    /**
+     * Fetch the number of events that have been rejected by {@link #tryPass()}, {@link #tryPass(Duration)} or
+     * one of the deadline-aware {@code pass} methods.
+     *
+     * @return The number of rejected events.
+     */
+    public long getEventsRejected()
+    {
+        return this.rejected.sum();
+    }
+
+    /**
+     * Fetch the number of events currently waiting to pass the {@link Turnstile}. This includes threads held in
+     * {@link #pass()} or {@link #tryPass(Duration)}, and asynchronous passages which have not completed yet.
+     *
+     * @return The number of waiting events.
+     */
+    public long getWaiterCount()
+    {
+        return this.waiters.sum();
+    }
+
+    /**
+     * Check to see if this {@link Turnstile} admits waiting threads in the order they arrived.
+     *
+     * @return {@code true} if the turnstile is fair, {@code false} if threads may barge ahead.
+     */
+    public boolean isFair()
+    {
+        return this.admission.isFair();
     }
 
     /**
@@ -104,6 +230,41 @@ public class Turnstile
         this.meter.start();
     }
 
+    /**
+     * Check to see if this {@link Turnstile} is currently paused.
+     *
+     * @return {@code true} if the turnstile is paused (or was never started), {@code false} if it is running.
+     */
+    public boolean isPaused()
+    {
+        return this.meter.isPaused();
+    }
+
+    /**
+     * Fetch the rate this {@link Turnstile} restricts events to, if its {@link Meter} is governed by a single
+     * {@link FlowRate}.
+     *
+     * @return The configured {@link FlowRate}, or an empty {@link Optional} if the meter has no single rate.
+     */
+    public Optional<FlowRate> getFlowRate()
+    {
+        return this.meter.getFlowRate();
+    }
+
+    /**
+     * Change the rate this {@link Turnstile} restricts events to, without resetting it. The change takes effect
+     * from the current moment: threads already waiting keep the delays they were given and are not woken, and
+     * later events are spaced at the new rate from where the meter currently stands. This is safe to call while
+     * other threads are passing the turnstile.
+     *
+     * @param rate The new {@link FlowRate} to restrict events to.
+     * @throws UnsupportedOperationException If the configured {@link Meter} does not support changing its rate.
+     */
+    public void setRate(final FlowRate rate)
+    {
+        this.meter.setRate(rate);
+    }
+
     /**
      * Pause the {@link Turnstile}. For {@link Meter}s which care about the passage of time, this may result in events
      * being blocked. Other M
@@ -129,6 +290,8 @@ public class Turnstile
                 this.blockId = null;
             }
         }
+
+        this.releaseBlockedWaiters();
     }
 
     /**
@@ -163,18 +326,685 @@ public class Turnstile
      * Have the current thread attempt to pass the turnstile. If allowing the thread to
      * continue would exceed the configured rate, the thread will be blocked until the
      * rate falls within the desired limits.
+     * <p>
+     * If the configured {@link Meter} is concurrent, threads are not serialized and each one waits for its own
+     * delay in parallel with the others. Otherwise, threads pass one at a time, in arrival order if the turnstile
+     * is {@link #isFair() fair}.
+     * <p>
+     * If the thread is interrupted while being held, the event never passes and is
+     * {@link Meter#refund(long, long) refunded} to the {@link Meter}, so that later events are not delayed on its
+     * account.
      *
      * @throws InterruptedException If the thread is interrupted while being restricted.
      */
     public void pass() throws InterruptedException
     {
-        synchronized (this.eventCount)
+        this.passWeighted(1L);
+    }
+
+    /**
+     * Have the current thread pass the turnstile with an event weighted with several permits, such as a number
+     * of bytes or a query cost. Each permit counts as one event against the configured {@link Meter}, but a single
+     * decision is made for the whole event: the thread is held until its last permit would be allowed to pass,
+     * exactly as if it had passed the turnstile once for each permit.
+     *
+     * @param permits The number of permits the event is weighted with. This must be at least one.
+     * @throws InterruptedException If the thread is interrupted while being restricted.
+     * @see #pass()
+     */
+    public void pass(final long permits) throws InterruptedException
+    {
+        Preconditions.checkArgument(permits > 0, "At least one permit is required.");
+
+        this.passWeighted(permits);
+    }
+
+    /**
+     * Pass the turnstile with an event weighted with the supplied number of permits, as described by
+     * {@link #pass(long)}.
+     *
+     * @param permits The number of permits the event is weighted with.
+     * @throws InterruptedException If the thread is interrupted while being restricted.
+     */
+    private void passWeighted(final long permits) throws InterruptedException
+    {
+        this.waiters.increment();
+        try
+        {
+            final long arrived = System.nanoTime();
+            final long admitted;
+            final long event;
+
+            if (this.meter.isConcurrent())
+            {
+                admitted = arrived;
+                event = this.eventCount.add(permits);
+                this.delay(event, permits);
+                this.awaitUnblocked();
+            }
+            else
+            {
+                this.admission.lockInterruptibly();
+                try
+                {
+                    admitted = System.nanoTime();
+                    event = this.eventCount.add(permits);
+                    this.delay(event, permits);
+                    this.awaitUnblocked();
+                }
+                finally
+                {
+                    this.delaying = false;
+                    this.admission.unlock();
+                }
+            }
+
+            this.observePassage(event, permits);
+            this.observer.observeHold(admitted - arrived, System.nanoTime() - arrived);
+        }
+        finally
+        {
+            this.waiters.decrement();
+        }
+    }
+
+    /**
+     * Delay the current thread for an event using the configured {@link Meter}. Single events go through
+     * {@link Meter#delay(long)}, so that meters which only override it keep working.
+     * <p>
+     * A thread holding the admission lock first marks itself as delaying, so that {@code tryPass} callers are
+     * rejected rather than kept waiting for it, but only if the meter would actually hold it. No other event can
+     * be claimed while the lock is held, so the meter's delay can only shrink between asking and claiming.
+     *
+     * @param event The sequence number of the last permit of the event.
+     * @param permits The number of permits the event is weighted with.
+     * @throws InterruptedException If the thread is interrupted while being restricted.
+     */
+    private void delay(final long event, final long permits) throws InterruptedException
+    {
+        if (this.admission.isHeldByCurrentThread() && this.meter.getDelayNanosFor(event, permits) > 0L)
+        {
+            this.delaying = true;
+        }
+
+        try
+        {
+            if (permits == 1L) this.meter.delay(event);
+            else this.meter.delay(event, permits);
+        }
+        catch (InterruptedException e)
         {
-            this.meter.delay(this.eventCount.incrementAndGet());
+            // The event never passed, so later events shouldn't wait on its account
+            this.withdraw(event, permits);
+            throw e;
+        }
+    }
+
+    /**
+     * Reserve a place for a single event, without waiting.
+     *
+     * @return A {@link Reservation} for the event.
+     * @see #reserve(long)
+     */
+    public Reservation reserve()
+    {
+        return this.reserve(1L);
+    }
+
+    /**
+     * Reserve a place for an event weighted with several permits, without waiting. The event is counted and
+     * committed to the configured {@link Meter} immediately, in the same order as it would be for {@link #pass()},
+     * but the thread is only held once it calls {@link Reservation#await()}. A reservation which is cancelled, or
+     * refunded after passing, returns its permits to the meter.
+     * <p>
+     * If the configured {@link Meter} is not concurrent, making the reservation requires the same admission lock used
+     * by {@link #pass()}, but awaiting it does not, so reservations are held in parallel with each other.
+     *
+     * @param permits The number of permits the event is weighted with. This must be at least one.
+     * @return A {@link Reservation} for the event.
+     */
+    public Reservation reserve(final long permits)
+    {
+        Preconditions.checkArgument(permits > 0, "At least one permit is required.");
 
-            final long checkBlock = this.block.readLock();
-            this.observer.observe(this.eventCount.get());
-            this.block.unlockRead(checkBlock);
+        final long event;
+        final long delay;
+
+        if (this.meter.isConcurrent())
+        {
+            event = this.eventCount.add(permits);
+            delay = this.meter.claim(event, permits);
+        }
+        else
+        {
+            this.admission.lock();
+            try
+            {
+                event = this.eventCount.add(permits);
+                delay = this.meter.claim(event, permits);
+            }
+            finally
+            {
+                this.admission.unlock();
+            }
         }
+        this.meter.recordDelay(delay);
+
+        return new Reservation(this, event, permits, System.nanoTime() + delay);
+    }
+
+    /**
+     * Hold the current thread for the remaining delay of a {@link Reservation}, then wait for any block on the
+     * {@link Turnstile} to clear.
+     *
+     * @param delayNanos The remaining delay, in nanoseconds.
+     * @throws InterruptedException If the thread is interrupted while being held.
+     */
+    void holdReservation(final long delayNanos) throws InterruptedException
+    {
+        this.meter.hold(delayNanos);
+        this.awaitUnblocked();
+    }
+
+    /**
+     * Record the passage of a {@link Reservation}.
+     *
+     * @param event The sequence number of the last permit of the event.
+     * @param permits The number of permits the event was weighted with.
+     */
+    void observeReservation(final long event, final long permits)
+    {
+        this.observePassage(event, permits);
+    }
+
+    /**
+     * Tell the {@link TurnstileObserver} that an event has passed. If the configured {@link EventCounter} doesn't
+     * hand out consecutive sequence numbers, the observer numbers the event itself instead.
+     *
+     * @param event The sequence number of the last permit of the event.
+     * @param permits The number of permits the event was weighted with.
+     */
+    private void observePassage(final long event, final long permits)
+    {
+        if (this.eventCount.isConsecutive()) this.observer.observe(event, permits);
+        else this.observer.observeNext(permits);
+    }
+
+    /**
+     * Return the permits of an event which passed, but whose work never happened, to the configured {@link Meter}.
+     * The event has already been observed, and is still counted as having passed.
+     *
+     * @param event The sequence number of the last permit of the event.
+     * @param permits The number of permits the event was weighted with.
+     */
+    void refund(final long event, final long permits)
+    {
+        this.meter.refund(event, permits);
+    }
+
+    /**
+     * Withdraw an event which was counted but will never pass. Its permits are returned to the configured
+     * {@link Meter}, it is no longer counted as seen, and the {@link TurnstileObserver} is told never to count it.
+     *
+     * @param event The sequence number of the last permit of the event.
+     * @param permits The number of permits the event was weighted with.
+     */
+    void withdraw(final long event, final long permits)
+    {
+        this.meter.refund(event, permits);
+        this.withdrawn.add(permits);
+
+        // An observer numbering events itself never leaves room for the event, so there is nothing to take back
+        if (this.eventCount.isConsecutive()) this.observer.observeWithdrawal(event, permits);
+    }
+
+    /**
+     * Pass the turnstile asynchronously. The returned future completes once the delay imposed by the configured
+     * {@link Meter} has elapsed and the {@link Turnstile} is not blocked. No thread is held while waiting; all
+     * delays are tracked by a single timer shared by every {@link Turnstile}. The future is completed by the
+     * {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @return A {@link CompletableFuture} which completes when the event has passed.
+     * @see #passAsync(Executor)
+     */
+    public CompletableFuture<Void> passAsync()
+    {
+        return this.passAsync(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Pass the turnstile asynchronously. The returned future completes once the delay imposed by the configured
+     * {@link Meter} has elapsed and the {@link Turnstile} is not blocked. No thread is held while waiting; all
+     * delays are tracked by a single timer shared by every {@link Turnstile}.
+     * <p>
+     * The event is counted immediately, in the same order as it would be for {@link #pass()}. If the configured
+     * {@link Meter} is not concurrent, counting the event requires the same admission lock used by {@link #pass()},
+     * which a synchronous passage keeps for the whole of its delay. Mixing synchronous and asynchronous passage on
+     * such a {@link Turnstile} therefore blocks this call until every synchronous passage ahead of it has passed.
+     * Only use a concurrent meter, or asynchronous passage alone, where the calling thread must never wait.
+     *
+     * @param executor The {@link Executor} used to complete the future, and therefore to run any dependent
+     * actions which do not specify their own executor.
+     * @return A {@link CompletableFuture} which completes when the event has passed.
+     */
+    public CompletableFuture<Void> passAsync(final Executor executor)
+    {
+        final CompletableFuture<Void> passage = new CompletableFuture<>();
+        final long event;
+        final long delay;
+
+        this.waiters.increment();
+
+        if (this.meter.isConcurrent())
+        {
+            event = this.eventCount.add(1L);
+            delay = this.meter.claim(event);
+        }
+        else
+        {
+            this.admission.lock();
+            try
+            {
+                event = this.eventCount.add(1L);
+                delay = this.meter.claim(event);
+            }
+            finally
+            {
+                this.admission.unlock();
+            }
+        }
+        this.meter.recordDelay(delay);
+
+        if (delay > 0)
+        {
+            Turnstile.log.trace("Delaying async passage: {}ns", delay);
+            TimerHolder.TIMER.schedule(() -> this.release(passage, event, executor), delay, TimeUnit.NANOSECONDS);
+        }
+        else
+        {
+            this.release(passage, event, executor);
+        }
+
+        return passage;
+    }
+
+    /**
+     * Attempt to pass the turnstile without waiting. The event is only admitted if the configured {@link Meter}
+     * would allow it to pass immediately and the {@link Turnstile} is not blocked. A rejected event is not counted
+     * and has no effect on the policy applied to later events.
+     * <p>
+     * If the configured {@link Meter} is not concurrent, the event is also rejected while another thread is held for
+     * its delay by {@link #pass()}, since that thread keeps the admission lock until it passes.
+     *
+     * @return {@code true} if the event passed the turnstile, {@code false} if it was rejected.
+     */
+    public boolean tryPass()
+    {
+        return this.tryPassWeighted(1L);
+    }
+
+    /**
+     * Attempt to pass the turnstile with an event weighted with several permits, without waiting. The event is
+     * only admitted if the configured {@link Meter} would allow all of its permits to pass immediately and the
+     * {@link Turnstile} is not blocked. A rejected event is not counted and has no effect on the policy applied to
+     * later events. As with {@link #tryPass()}, the event is rejected while another thread is held for its delay.
+     *
+     * @param permits The number of permits the event is weighted with. This must be at least one.
+     * @return {@code true} if the event passed the turnstile, {@code false} if it was rejected.
+     * @see #pass(long)
+     */
+    public boolean tryPass(final long permits)
+    {
+        Preconditions.checkArgument(permits > 0, "At least one permit is required.");
+
+        return this.tryPassWeighted(permits);
+    }
+
+    /**
+     * Attempt to pass the turnstile without waiting, as described by {@link #tryPass(long)}.
+     *
+     * @param permits The number of permits the event is weighted with.
+     * @return {@code true} if the event passed the turnstile, {@code false} if it was rejected.
+     */
+    private boolean tryPassWeighted(final long permits)
+    {
+        final long arrived = System.nanoTime();
+        final long admitted;
+        final long event;
+
+        if (this.meter.isConcurrent())
+        {
+            admitted = arrived;
+            event = this.tryAdmit(permits);
+        }
+        else if (this.tryAcquireAdmission())
+        {
+            try
+            {
+                admitted = System.nanoTime();
+                event = this.tryAdmit(permits);
+            }
+            finally
+            {
+                this.admission.unlock();
+            }
+        }
+        else
+        {
+            // Another thread is being held for its delay, and would keep this one waiting just as long
+            admitted = arrived;
+            event = 0L;
+        }
+
+        return this.observePassage(event, permits, arrived, admitted);
+    }
+
+    /**
+     * Attempt to pass the turnstile, waiting no longer than the supplied timeout. The event is only admitted if
+     * the delay imposed by the configured {@link Meter} fits within the timeout and the {@link Turnstile} is not
+     * blocked. If the event is admitted, the thread is delayed exactly as it would be by {@link #pass()}. A rejected
+     * event is not counted and has no effect on the policy applied to later events.
+     * <p>
+     * <em>Note:</em> A block placed on the {@link Turnstile} after the event has been admitted will still hold the
+     * thread until the block is lifted, just as it would for {@link #pass()}.
+     *
+     * @param timeout The maximum amount of time the thread is willing to be delayed.
+     * @return {@code true} if the event passed the turnstile, {@code false} if it was rejected.
+     * @throws InterruptedException If the thread is interrupted while being restricted.
+     */
+    public boolean tryPass(final Duration timeout) throws InterruptedException
+    {
+        return this.passWithin(Turnstile.toNanos(timeout));
+    }
+
+    /**
+     * Have the current thread pass the turnstile, as long as it can do so within the supplied budget. The delay
+     * imposed by the configured {@link Meter} is predicted before the thread is held, and the event is rejected
+     * immediately if it would not pass in time or the {@link Turnstile} is blocked. Any time spent waiting for
+     * other threads to be admitted is taken out of the budget, and the event is rejected if its turn does not come
+     * within the budget. An event whose turn comes in time is still admitted if it can pass without any delay. A
+     * rejected event is not counted and has no effect on the policy applied to later events. Budgets too large to
+     * count in nanoseconds are treated as unlimited.
+     *
+     * @param budget The most time the thread can spend passing the turnstile.
+     * @throws DeadlineExceededException If the event could not pass within the budget.
+     * @throws InterruptedException If the thread is interrupted while being restricted.
+     * @see #tryPass(Duration)
+     */
+    public void pass(final Duration budget) throws DeadlineExceededException, InterruptedException
+    {
+        if (!this.passWithin(Turnstile.toNanos(budget))) throw new DeadlineExceededException(budget);
+    }
+
+    /**
+     * Have the current thread pass the turnstile, as long as it can do so before the supplied deadline. This
+     * behaves exactly like {@link #pass(Duration)}, with the budget measured from the current time of the
+     * {@link Meter}'s {@link io.zeropointx.time.TimeProvider TimeProvider}. An event whose deadline has already
+     * passed is always rejected.
+     * <p>
+     * The deadline is a wall-clock time, so it is converted to a budget once, using the provider's wall-clock
+     * timestamp. From then on the budget is measured on the monotonic clock that meters run on, so adjustments to
+     * the wall clock while the thread waits don't move the deadline.
+     *
+     * @param deadline The time by which the thread must have passed the turnstile.
+     * @throws DeadlineExceededException If the event could not pass before the deadline.
+     * @throws InterruptedException If the thread is interrupted while being restricted.
+     */
+    public void pass(final Instant deadline) throws DeadlineExceededException, InterruptedException
+    {
+        final long now = this.meter.getTimeProvider().getTimestamp();
+        this.pass(Duration.between(Instant.ofEpochMilli(now), deadline));
+    }
+
+    /**
+     * Convert a {@link Duration} to nanoseconds, saturating at the limits of a {@code long} rather than failing.
+     *
+     * @param duration The {@link Duration} to convert.
+     * @return The number of nanoseconds.
+     */
+    static long toNanos(final Duration duration)
+    {
+        try
+        {
+            return duration.toNanos();
+        }
+        catch (ArithmeticException e)
+        {
+            return duration.isNegative() ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Attempt to pass the turnstile within the supplied budget, as described by {@link #pass(Duration)}.
+     *
+     * @param budgetNanos The most time the thread can spend passing the turnstile, in nanoseconds.
+     * @return {@code true} if the event passed the turnstile, {@code false} if it was rejected.
+     * @throws InterruptedException If the thread is interrupted while being restricted.
+     */
+    private boolean passWithin(final long budgetNanos) throws InterruptedException
+    {
+        this.waiters.increment();
+        try
+        {
+            final long arrived = System.nanoTime();
+            final long admitted;
+            final long event;
+
+            if (budgetNanos < 0)
+            {
+                admitted = arrived;
+                event = 0L;
+            }
+            else if (this.meter.isConcurrent())
+            {
+                admitted = arrived;
+                event = this.tryAdmitWithin(budgetNanos);
+            }
+            else if (this.admission.tryLock(budgetNanos, TimeUnit.NANOSECONDS))
+            {
+                try
+                {
+                    admitted = System.nanoTime();
+                    event = this.tryAdmitWithin(Math.max(0L, budgetNanos - (admitted - arrived)));
+                }
+                finally
+                {
+                    this.delaying = false;
+                    this.admission.unlock();
+                }
+            }
+            else
+            {
+                // The budget ran out while other threads were being admitted
+                admitted = System.nanoTime();
+                event = 0L;
+            }
+
+            return this.observePassage(event, 1L, arrived, admitted);
+        }
+        finally
+        {
+            this.waiters.decrement();
+        }
+    }
+
+    /**
+     * Acquire the admission lock without waiting for a thread which is being held for its delay or by a block.
+     * Threads which only hold the lock briefly, to count an event and consult the {@link Meter}, are waited for.
+     *
+     * @return {@code true} if the lock was acquired, {@code false} if it is held by a thread being held for its
+     * delay or the {@link Turnstile} is blocked.
+     */
+    private boolean tryAcquireAdmission()
+    {
+        while (!this.admission.tryLock())
+        {
+            if (this.delaying || this.isBlocked()) return false;
+            Thread.yield();
+        }
+
+        return true;
+    }
+
+    /**
+     * Admit the next event if it is allowed to pass immediately. Unless the {@link Meter} is concurrent, this
+     * must be called while holding the admission lock.
+     *
+     * @param permits The number of permits the event is weighted with.
+     * @return The sequence number of the last permit of the admitted event, or zero if it was rejected.
+     */
+    private long tryAdmit(final long permits)
+    {
+        // Hold off any block until the event is counted, rather than waiting for one to be lifted
+        final long stamp = this.block.tryReadLock();
+        if (stamp == 0L) return 0L;
+
+        try
+        {
+            final long delay = this.meter.tryClaim(this.eventCount.peek(permits), permits, 0L);
+            if (delay == Meter.REJECTED) return 0L;
+
+            this.meter.recordDelay(delay);
+            return this.eventCount.add(permits);
+        }
+        finally
+        {
+            this.block.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Admit the next event if it can pass within the supplied delay, holding the current thread for any delay
+     * imposed by the {@link Meter}. Unless the {@link Meter} is concurrent, this must be called while holding the
+     * admission lock.
+     *
+     * @param maxDelay The longest acceptable delay, in nanoseconds.
+     * @return The sequence number of the admitted event, or zero if it was rejected.
+     * @throws InterruptedException If the thread is interrupted while being restricted.
+     */
+    private long tryAdmitWithin(final long maxDelay) throws InterruptedException
+    {
+        // Hold off any block until the event is counted, but not while the thread is held for its delay
+        final long stamp = this.block.tryReadLock();
+        if (stamp == 0L) return 0L;
+
+        final long event;
+        final long delay;
+        try
+        {
+            delay = this.meter.tryClaim(this.eventCount.peek(1L), maxDelay);
+            if (delay == Meter.REJECTED) return 0L;
+
+            event = this.eventCount.add(1L);
+            this.meter.recordDelay(delay);
+        }
+        finally
+        {
+            this.block.unlockRead(stamp);
+        }
+
+        // Only a thread which will actually be held turns tryPass() callers away
+        if (delay > 0L && this.admission.isHeldByCurrentThread()) this.delaying = true;
+        try
+        {
+            this.meter.hold(delay);
+        }
+        catch (InterruptedException e)
+        {
+            this.withdraw(event, 1L);
+            throw e;
+        }
+        this.awaitUnblocked();
+
+        return event;
+    }
+
+    /**
+     * Complete an asynchronous passage, recording the passage of the event. If the {@link Turnstile} is blocked,
+     * the passage is set aside until the block is lifted.
+     *
+     * @param passage The future to complete.
+     * @param event The sequence number of the event.
+     * @param executor The {@link Executor} used to complete the future.
+     */
+    private void release(final CompletableFuture<Void> passage, final long event, final Executor executor)
+    {
+        if (this.block.isWriteLocked())
+        {
+            this.blockedWaiters.add(() -> this.release(passage, event, executor));
+
+            // The block may have been lifted before the passage was queued
+            if (!this.block.isWriteLocked()) this.releaseBlockedWaiters();
+            return;
+        }
+
+        this.waiters.decrement();
+        this.observePassage(event, 1L);
+
+        try
+        {
+            executor.execute(() -> passage.complete(null));
+        }
+        catch (RejectedExecutionException e)
+        {
+            passage.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Retry all asynchronous passages which were set aside because of a block. Passages which are still blocked
+     * will be set aside again.
+     */
+    private void releaseBlockedWaiters()
+    {
+        int remaining = this.blockedWaiters.size();
+        Runnable waiter;
+        while (remaining-- > 0 && (waiter = this.blockedWaiters.poll()) != null)
+        {
+            waiter.run();
+        }
+    }
+
+    /**
+     * Wait for any block on the {@link Turnstile} to clear.
+     */
+    private void awaitUnblocked()
+    {
+        this.block.unlockRead(this.block.readLock());
+    }
+
+    /**
+     * Record the passage of an event admitted by one of the {@code tryAdmit} methods. This is done outside of the
+     * admission lock, so that collecting statistics never extends the time other events spend waiting to be admitted.
+     *
+     * @param event The sequence number of the last permit of the admitted event, or zero if it was rejected.
+     * @param permits The number of permits the event was weighted with.
+     * @param arrived The time the thread arrived at the turnstile, from {@link System#nanoTime()}.
+     * @param admitted The time the thread was admitted for metering, from {@link System#nanoTime()}.
+     * @return {@code true} if the event was admitted, {@code false} if it was rejected.
+     */
+    private boolean observePassage(final long event, final long permits, final long arrived, final long admitted)
+    {
+        if (event == 0L)
+        {
+            this.rejected.increment();
+            return false;
+        }
+
+        this.observePassage(event, permits);
+        this.observer.observeHold(admitted - arrived, System.nanoTime() - arrived);
+        return true;
+    }
+
+    /**
+     * A lazily initialized holder for the timer shared by all asynchronous passages.
+     */
+    private static class TimerHolder
+    {
+        /** The single timer thread used to schedule all delayed asynchronous passages. */
+        private static final ScheduledExecutorService TIMER =
+                Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("turnstile-timer")
+                                                                                     .setDaemon(true)
+                                                                                     .build());
     }
 }
@@ -0,0 +1,147 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+/**
+ * A {@link TurnstileMXBean} is the management interface for a {@link Turnstile} published over JMX. All
+ * attributes are read from volatile or atomic state, so polling them never contends with threads passing the
+ * turnstile. Delays are reported in milliseconds, from histogram snapshots which are reused for up to a second.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ * @see TurnstileManagement#register(Turnstile, String)
+ */
+public interface TurnstileMXBean
+{
+    /**
+     * @return The number of events that have entered the turnstile.
+     * @see Turnstile#getEventsSeen()
+     */
+    long getEventsSeen();
+
+    /**
+     * @return {@code true} if the turnstile is blocked.
+     * @see Turnstile#isBlocked()
+     */
+    boolean isBlocked();
+
+    /**
+     * @return {@code true} if the turnstile is paused.
+     * @see Turnstile#isPaused()
+     */
+    boolean isPaused();
+
+    /**
+     * @return The configured rate in {@link FlowRate} format, or {@code null} if the meter has no single rate.
+     * @see Turnstile#getFlowRate()
+     */
+    String getFlowRate();
+
+    /**
+     * Change the rate of the turnstile. This makes the flow rate a writable attribute.
+     *
+     * @param rate The new rate, in the format accepted by {@link FlowRate#FlowRate(CharSequence)}.
+     * @see Turnstile#setRate(FlowRate)
+     */
+    void setFlowRate(String rate);
+
+    /**
+     * @return The periods of the observed moving average rates, in the same order as
+     * {@link #getMovingAverageRates()}.
+     */
+    String[] getMovingAveragePeriods();
+
+    /**
+     * @return The observed moving average rates, in events per second.
+     */
+    double[] getMovingAverageRates();
+
+    /**
+     * @return The median time spent waiting to be admitted for metering.
+     */
+    double getAdmissionWaitP50();
+
+    /**
+     * @return The 99th percentile of time spent waiting to be admitted for metering.
+     */
+    double getAdmissionWaitP99();
+
+    /**
+     * @return The 99.9th percentile of time spent waiting to be admitted for metering.
+     */
+    double getAdmissionWaitP999();
+
+    /**
+     * @return The median delay imposed by the meter.
+     */
+    double getMeterDelayP50();
+
+    /**
+     * @return The 99th percentile of delays imposed by the meter.
+     */
+    double getMeterDelayP99();
+
+    /**
+     * @return The 99.9th percentile of delays imposed by the meter.
+     */
+    double getMeterDelayP999();
+
+    /**
+     * @return The median total time threads were held by the turnstile.
+     */
+    double getHoldTimeP50();
+
+    /**
+     * @return The 99th percentile of the total time threads were held by the turnstile.
+     */
+    double getHoldTimeP99();
+
+    /**
+     * @return The 99.9th percentile of the total time threads were held by the turnstile.
+     */
+    double getHoldTimeP999();
+
+    /**
+     * Block the turnstile.
+     *
+     * @see Turnstile#block()
+     */
+    void block();
+
+    /**
+     * Unblock the turnstile.
+     *
+     * @see Turnstile#unblock()
+     */
+    void unblock();
+
+    /**
+     * Start the turnstile.
+     *
+     * @see Turnstile#start()
+     */
+    void start();
+
+    /**
+     * Pause the turnstile.
+     *
+     * @see Turnstile#pause()
+     */
+    void pause();
+}
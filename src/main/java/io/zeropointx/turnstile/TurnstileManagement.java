@@ -0,0 +1,322 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import io.zeropointx.time.DefaultTimeProvider;
+import io.zeropointx.time.TimeProvider;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link TurnstileManagement} publishes a {@link Turnstile} over JMX as a {@link TurnstileMXBean}. Publishing
+ * is opt-in: a turnstile is only visible once it has been {@link #register(Turnstile, String) registered}.
+ * <p>
+ * Percentiles are read from a snapshot of each histogram which is reused for up to a second, so a monitoring
+ * system polling every percentile attribute copies each histogram once rather than once per attribute.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class TurnstileManagement implements TurnstileMXBean
+{
+    /** The JMX domain that turnstiles are registered under. */
+    public static final String DOMAIN = "io.zeropointx.turnstile";
+    /** How long a snapshot of a histogram is reused for, in nanoseconds. */
+    private static final long SNAPSHOT_LIFETIME = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Register a {@link Turnstile} with the platform {@link MBeanServer}.
+     *
+     * @param turnstile The {@link Turnstile} to publish.
+     * @param name A name which identifies the turnstile among all registered turnstiles.
+     * @return The {@link ObjectName} the turnstile was registered under.
+     * @throws IllegalStateException If a turnstile is already registered with the same name.
+     */
+    public static ObjectName register(final Turnstile turnstile, final String name)
+    {
+        final ObjectName objectName = TurnstileManagement.objectNameFor(name);
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new TurnstileManagement(turnstile), objectName);
+        }
+        catch (JMException e)
+        {
+            throw new IllegalStateException("Could not register turnstile: " + name, e);
+        }
+
+        return objectName;
+    }
+
+    /**
+     * Remove a previously registered {@link Turnstile} from the platform {@link MBeanServer}. Names which are not
+     * registered are ignored.
+     *
+     * @param name The name the turnstile was registered with.
+     */
+    public static void unregister(final String name)
+    {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = TurnstileManagement.objectNameFor(name);
+        try
+        {
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+        }
+        catch (JMException e)
+        {
+            throw new IllegalStateException("Could not unregister turnstile: " + name, e);
+        }
+    }
+
+    /**
+     * Build the {@link ObjectName} for a turnstile registered with the given name.
+     *
+     * @param name The name of the turnstile.
+     * @return The {@link ObjectName}.
+     */
+    public static ObjectName objectNameFor(final String name)
+    {
+        try
+        {
+            return new ObjectName(TurnstileManagement.DOMAIN + ":type=Turnstile,name=" + ObjectName.quote(name));
+        }
+        catch (JMException e)
+        {
+            throw new IllegalArgumentException("Invalid turnstile name: " + name, e);
+        }
+    }
+
+    private final Turnstile turnstile;
+    /** The {@link TimeProvider} used to decide when histogram snapshots are too old to reuse. */
+    private final TimeProvider timeProvider;
+    private final CachedSnapshot admissionWait;
+    private final CachedSnapshot meterDelay;
+    private final CachedSnapshot holdTime;
+
+    /**
+     * Create a new {@link TurnstileManagement} for a {@link Turnstile}. This does not register it.
+     *
+     * @param turnstile The {@link Turnstile} to manage.
+     */
+    public TurnstileManagement(final Turnstile turnstile)
+    {
+        this(turnstile, DefaultTimeProvider.getDefault());
+    }
+
+    /**
+     * Create a new {@link TurnstileManagement} for a {@link Turnstile}, timing the reuse of histogram snapshots
+     * with the supplied {@link TimeProvider}. This does not register it.
+     *
+     * @param turnstile The {@link Turnstile} to manage.
+     * @param timeProvider The {@link TimeProvider} to use as the clock.
+     */
+    public TurnstileManagement(final Turnstile turnstile, final TimeProvider timeProvider)
+    {
+        super();
+
+        this.turnstile = turnstile;
+        this.timeProvider = timeProvider;
+
+        final TurnstileObserver observer = turnstile.getObserver();
+        this.admissionWait = new CachedSnapshot(observer.getAdmissionWaitHistogram());
+        this.meterDelay = new CachedSnapshot(observer.getMeterDelayHistogram());
+        this.holdTime = new CachedSnapshot(observer.getHoldTimeHistogram());
+    }
+
+    @Override
+    public long getEventsSeen()
+    {
+        return this.turnstile.getEventsSeen();
+    }
+
+    @Override
+    public boolean isBlocked()
+    {
+        return this.turnstile.isBlocked();
+    }
+
+    @Override
+    public boolean isPaused()
+    {
+        return this.turnstile.isPaused();
+    }
+
+    @Override
+    public String getFlowRate()
+    {
+        return this.turnstile.getFlowRate().map(FlowRate::toString).orElse(null);
+    }
+
+    @Override
+    public void setFlowRate(final String rate)
+    {
+        this.turnstile.setRate(new FlowRate(rate));
+    }
+
+    @Override
+    public String[] getMovingAveragePeriods()
+    {
+        final TurnstileObserver observer = this.turnstile.getObserver();
+        final String[] periods = new String[observer.getMovingAverageCount()];
+        for (int i = 0; i < periods.length; i++)
+        {
+            periods[i] = observer.getMovingAveragePeriod(i).toString();
+        }
+
+        return periods;
+    }
+
+    @Override
+    public double[] getMovingAverageRates()
+    {
+        final TurnstileObserver observer = this.turnstile.getObserver();
+        final double[] rates = new double[observer.getMovingAverageCount()];
+        for (int i = 0; i < rates.length; i++)
+        {
+            rates[i] = observer.getMovingAverageRate(i);
+        }
+
+        return rates;
+    }
+
+    @Override
+    public double getAdmissionWaitP50()
+    {
+        return TurnstileManagement.percentile(this.admissionWait.get(), 50.0);
+    }
+
+    @Override
+    public double getAdmissionWaitP99()
+    {
+        return TurnstileManagement.percentile(this.admissionWait.get(), 99.0);
+    }
+
+    @Override
+    public double getAdmissionWaitP999()
+    {
+        return TurnstileManagement.percentile(this.admissionWait.get(), 99.9);
+    }
+
+    @Override
+    public double getMeterDelayP50()
+    {
+        return TurnstileManagement.percentile(this.meterDelay.get(), 50.0);
+    }
+
+    @Override
+    public double getMeterDelayP99()
+    {
+        return TurnstileManagement.percentile(this.meterDelay.get(), 99.0);
+    }
+
+    @Override
+    public double getMeterDelayP999()
+    {
+        return TurnstileManagement.percentile(this.meterDelay.get(), 99.9);
+    }
+
+    @Override
+    public double getHoldTimeP50()
+    {
+        return TurnstileManagement.percentile(this.holdTime.get(), 50.0);
+    }
+
+    @Override
+    public double getHoldTimeP99()
+    {
+        return TurnstileManagement.percentile(this.holdTime.get(), 99.0);
+    }
+
+    @Override
+    public double getHoldTimeP999()
+    {
+        return TurnstileManagement.percentile(this.holdTime.get(), 99.9);
+    }
+
+    @Override
+    public void block()
+    {
+        this.turnstile.block();
+    }
+
+    @Override
+    public void unblock()
+    {
+        this.turnstile.unblock();
+    }
+
+    @Override
+    public void start()
+    {
+        this.turnstile.start();
+    }
+
+    @Override
+    public void pause()
+    {
+        this.turnstile.pause();
+    }
+
+    /**
+     * Read a percentile from a histogram snapshot.
+     *
+     * @param snapshot The {@link DelayHistogram.Snapshot} to read.
+     * @param percentile The percentile to report.
+     * @return The delay in milliseconds.
+     */
+    private static double percentile(final DelayHistogram.Snapshot snapshot, final double percentile)
+    {
+        return snapshot.getValueAtPercentile(percentile) / 1_000_000d;
+    }
+
+    /**
+     * A snapshot of a {@link DelayHistogram} which is reused until it is {@link #SNAPSHOT_LIFETIME} old. The
+     * histogram is never reset. Threads racing to replace an old snapshot may each take one, which is harmless.
+     */
+    private final class CachedSnapshot
+    {
+        private final DelayHistogram histogram;
+        private volatile DelayHistogram.Snapshot snapshot;
+        private volatile long takenAt;
+
+        private CachedSnapshot(final DelayHistogram histogram)
+        {
+            super();
+
+            this.histogram = histogram;
+        }
+
+        private DelayHistogram.Snapshot get()
+        {
+            final long now = TurnstileManagement.this.timeProvider.getNanoTime();
+            DelayHistogram.Snapshot current = this.snapshot;
+            if (current == null || now - this.takenAt >= TurnstileManagement.SNAPSHOT_LIFETIME)
+            {
+                current = this.histogram.snapshot();
+                this.takenAt = now;
+                this.snapshot = current;
+            }
+
+            return current;
+        }
+    }
+}
@@ -19,17 +19,38 @@
 package io.zeropointx.turnstile;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import io.zeropointx.time.DefaultTimeProvider;
 import io.zeropointx.time.TimeProvider;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.Deque;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 /**
  * A {@link TurnstileObserver} receives event notifications from a {@link Turnstile} and provides methods
  * for calculating statistics or querying information about the passage of events.
+ * <p>
+ * By default, each event is folded into the window of recent events as soon as it is observed. A
+ * <em>deferred</em> observer instead publishes each event into a lock-free buffer and folds buffered events into
+ * the window later, either when the buffer fills or when statistics are next read. This keeps the cost of
+ * observation on the thread passing the {@link Turnstile} to a timestamp and a single atomic increment.
+ * <p>
+ * Alongside the window of recent events, every event is also counted in a series of time buckets. These allow
+ * rates over long periods to be calculated exactly, at the resolution of a single bucket, no matter how many
+ * events have passed.
+ * <p>
+ * For smoothed rates suitable for dashboards, the observer also keeps exponentially weighted moving averages of
+ * the event rate, much like the Unix load average. By default these are taken over one, five and fifteen minutes.
+ * <p>
+ * Finally, the observer records {@link DelayHistogram histograms} of how long threads were held by the
+ * {@link Turnstile}: the time spent waiting to be admitted for metering, the delay imposed by the {@link Meter},
+ * and the total time from arriving at the turnstile until passing it.
  *
  * @author jeff@darkware.org
  * @since 2017-05-17
@@ -38,12 +59,39 @@ public class TurnstileObserver
 {
     /** The ideal size of the event window */
     protected final static int IDEAL_SIZE = 40;
-
-    /** A {@link Deque} containing a constrained window of recent events seen by this observer. */
-    private final Deque<EventRecord> lastEvents;
+    /** The number of events a deferred observer can buffer before they must be folded into the window. */
+    protected final static int BUFFER_SIZE = 1024;
+    /** A sequence number standing in for one that the observer assigns itself as the event is folded in. */
+    private final static long NEXT_SEQUENCE = 0L;
+    /** The default length of time that events are counted for. */
+    public final static Duration DEFAULT_HORIZON = Duration.ofMinutes(5);
+    /** The default width of each bucket that events are counted in. */
+    public final static Duration DEFAULT_RESOLUTION = Duration.ofSeconds(1);
+    /** The default time constants of the moving averages of the event rate. */
+    public final static List<Duration> DEFAULT_AVERAGING_PERIODS =
+            ImmutableList.of(Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(15));
+
+    /** A fixed-size window of recent events seen by this observer. */
+    private final EventWindow lastEvents;
+    /** The highest sequence number accounted for in the window, whether observed or filled in. */
+    private long highestSequence;
+    /** Ranges of sequence numbers above the window which will never be observed, from first to last. */
+    private final NavigableMap<Long, Long> withdrawals;
+    /** Counts of all events seen by this observer, over a much longer period than the window. */
+    private final EventBuckets buckets;
+    /** Moving averages of the event rate. */
+    private final MovingAverages averages;
+    /** Time spent by threads waiting to be admitted for metering. */
+    private final DelayHistogram admissionWait;
+    /** Delays imposed by the {@link Meter}. */
+    private final DelayHistogram meterDelay;
+    /** Total time from arriving at the {@link Turnstile} until passing it. */
+    private final DelayHistogram holdTime;
 
     /** An object that supplies views of the current effective time. */
     private final TimeProvider timeProvider;
+    /** The buffer of events waiting to be folded into the window, or {@code null} if observation is immediate. */
+    private final EventBuffer buffer;
 
     /**
      * Create a new {@link TurnstileObserver}. The window of observed events is initially empty and time is provided
@@ -54,12 +102,211 @@ public class TurnstileObserver
         this(DefaultTimeProvider.getDefault());
     }
 
+    /**
+     * Create a new {@link TurnstileObserver} which observes events immediately.
+     *
+     * @param timeProvider The {@link TimeProvider} used to timestamp events.
+     */
     public TurnstileObserver(final TimeProvider timeProvider)
+    {
+        this(timeProvider, false);
+    }
+
+    /**
+     * Create a new {@link TurnstileObserver}.
+     *
+     * @param timeProvider The {@link TimeProvider} used to timestamp events.
+     * @param deferred {@code true} if observed events should be buffered and folded into the window later,
+     * {@code false} if they should be folded in as soon as they are observed.
+     */
+    public TurnstileObserver(final TimeProvider timeProvider, final boolean deferred)
+    {
+        this(timeProvider, deferred, TurnstileObserver.DEFAULT_HORIZON, TurnstileObserver.DEFAULT_RESOLUTION);
+    }
+
+    /**
+     * Create a new {@link TurnstileObserver}, counting events over a custom period.
+     *
+     * @param timeProvider The {@link TimeProvider} used to timestamp events.
+     * @param deferred {@code true} if observed events should be buffered and folded into the window later,
+     * {@code false} if they should be folded in as soon as they are observed.
+     * @param horizon The longest period that rates can be calculated over.
+     * @param resolution The width of each bucket that events are counted in. Rates over long periods are accurate
+     * to within one bucket.
+     */
+    public TurnstileObserver(final TimeProvider timeProvider, final boolean deferred,
+                             final Duration horizon, final Duration resolution)
+    {
+        this(timeProvider, deferred, horizon, resolution, TurnstileObserver.DEFAULT_AVERAGING_PERIODS);
+    }
+
+    /**
+     * Create a new {@link TurnstileObserver}, counting events over a custom period and averaging the event rate
+     * over custom time constants.
+     *
+     * @param timeProvider The {@link TimeProvider} used to timestamp events.
+     * @param deferred {@code true} if observed events should be buffered and folded into the window later,
+     * {@code false} if they should be folded in as soon as they are observed.
+     * @param horizon The longest period that rates can be calculated over.
+     * @param resolution The width of each bucket that events are counted in. Rates over long periods are accurate
+     * to within one bucket.
+     * @param averagingPeriods The time constants of the moving averages of the event rate.
+     */
+    public TurnstileObserver(final TimeProvider timeProvider, final boolean deferred,
+                             final Duration horizon, final Duration resolution,
+                             final List<Duration> averagingPeriods)
     {
         super();
 
-        this.lastEvents = new ConcurrentLinkedDeque<>();
+        this.lastEvents = new EventWindow(TurnstileObserver.IDEAL_SIZE);
+        this.withdrawals = new TreeMap<>();
+        this.buckets = new EventBuckets(horizon, resolution);
+        this.averages = new MovingAverages(timeProvider.getTimestamp(), averagingPeriods.toArray(new Duration[0]));
+        this.admissionWait = new DelayHistogram();
+        this.meterDelay = new DelayHistogram();
+        this.holdTime = new DelayHistogram();
         this.timeProvider = timeProvider;
+        this.buffer = deferred ? new EventBuffer(TurnstileObserver.BUFFER_SIZE) : null;
+    }
+
+    /**
+     * Check to see if this observer defers folding events into its window.
+     *
+     * @return {@code true} if events are buffered, {@code false} if they are observed immediately.
+     */
+    public boolean isDeferred()
+    {
+        return this.buffer != null;
+    }
+
+    /**
+     * Fetch the longest period that rates can be calculated over.
+     *
+     * @return The horizon as a {@link Duration}.
+     */
+    public Duration getHorizon()
+    {
+        return this.buckets.getHorizon();
+    }
+
+    /**
+     * Fetch the number of moving averages of the event rate kept by this observer.
+     *
+     * @return The number of averages.
+     */
+    public int getMovingAverageCount()
+    {
+        return this.averages.size();
+    }
+
+    /**
+     * Fetch the time constant of one of the moving averages of the event rate.
+     *
+     * @param index The index of the average, in the order the periods were supplied.
+     * @return The period as a {@link Duration}.
+     */
+    public Duration getMovingAveragePeriod(final int index)
+    {
+        return this.averages.getPeriod(index);
+    }
+
+    /**
+     * Fetch one of the moving averages of the event rate. The averages are updated every few seconds, so this
+     * is cheap enough to poll frequently and never allocates.
+     *
+     * @param index The index of the average, in the order the periods were supplied.
+     * @return The averaged rate, in events per second.
+     */
+    public double getMovingAverageRate(final int index)
+    {
+        return this.averages.getRate(this.timeProvider.getTimestamp(), index);
+    }
+
+    /**
+     * Fetch the moving average of the event rate over the last minute. This is only available when the default
+     * averaging periods are in use.
+     *
+     * @return The averaged rate, in events per second.
+     */
+    public double getOneMinuteRate()
+    {
+        return this.getDefaultMovingAverageRate(0);
+    }
+
+    /**
+     * Fetch the moving average of the event rate over the last five minutes. This is only available when the
+     * default averaging periods are in use.
+     *
+     * @return The averaged rate, in events per second.
+     */
+    public double getFiveMinuteRate()
+    {
+        return this.getDefaultMovingAverageRate(1);
+    }
+
+    /**
+     * Fetch the moving average of the event rate over the last fifteen minutes. This is only available when the
+     * default averaging periods are in use.
+     *
+     * @return The averaged rate, in events per second.
+     */
+    public double getFifteenMinuteRate()
+    {
+        return this.getDefaultMovingAverageRate(2);
+    }
+
+    /**
+     * Fetch the histogram of time spent by threads waiting to be admitted for metering. For a {@link Meter} which
+     * is not concurrent, this is the time spent waiting for other events to pass.
+     *
+     * @return The {@link DelayHistogram} of admission waits.
+     */
+    public DelayHistogram getAdmissionWaitHistogram()
+    {
+        return this.admissionWait;
+    }
+
+    /**
+     * Fetch the histogram of delays imposed by the {@link Meter}.
+     *
+     * @return The {@link DelayHistogram} of meter delays.
+     */
+    public DelayHistogram getMeterDelayHistogram()
+    {
+        return this.meterDelay;
+    }
+
+    /**
+     * Fetch the histogram of the total time threads were held by the {@link Turnstile}, from arriving until
+     * passing. This includes admission waits, meter delays and any time spent blocked.
+     *
+     * @return The {@link DelayHistogram} of hold times.
+     */
+    public DelayHistogram getHoldTimeHistogram()
+    {
+        return this.holdTime;
+    }
+
+    /**
+     * Record how long a thread was held while passing the {@link Turnstile}.
+     *
+     * @param admissionWait The time spent waiting to be admitted for metering, in nanoseconds.
+     * @param holdTime The total time spent passing the turnstile, in nanoseconds.
+     */
+    protected void observeHold(final long admissionWait, final long holdTime)
+    {
+        this.admissionWait.record(admissionWait);
+        this.holdTime.record(holdTime);
+    }
+
+    private double getDefaultMovingAverageRate(final int index)
+    {
+        final List<Duration> defaults = TurnstileObserver.DEFAULT_AVERAGING_PERIODS;
+        Preconditions.checkState(this.averages.size() == defaults.size()
+                                 && this.averages.getPeriod(index).equals(defaults.get(index)),
+                                 "The default averaging periods are not in use.");
+
+        return this.getMovingAverageRate(index);
     }
 
     /**
@@ -68,43 +315,197 @@ public class TurnstileObserver
      * @param sequenceNumber The sequence number of the event within the {@link Turnstile}.
      */
     protected void observe(final long sequenceNumber)
+    {
+        this.observe(sequenceNumber, 1L);
+    }
+
+    /**
+     * Mark the passage of an event weighted with several permits, as identified by a {@link Turnstile}. Each
+     * permit is counted as an event in its own right, all seen at the same moment.
+     *
+     * @param sequenceNumber The sequence number of the last permit of the event within the {@link Turnstile}.
+     * @param permits The number of permits the event was weighted with.
+     */
+    protected void observe(final long sequenceNumber, final long permits)
+    {
+        this.publish(sequenceNumber, permits);
+    }
+
+    /**
+     * Mark the passage of an event from a {@link Turnstile} whose sequence numbers are not consecutive, such as a
+     * {@link StripedTurnstile}. The observer numbers the event itself, directly after the last event folded into
+     * the window, so no events are ever simulated to fill gaps between them.
+     *
+     * @param permits The number of permits the event was weighted with.
+     */
+    protected void observeNext(final long permits)
+    {
+        this.publish(TurnstileObserver.NEXT_SEQUENCE, permits);
+    }
+
+    /**
+     * Fold an observed event into the window, or publish it into the buffer if the observer is deferred.
+     *
+     * @param sequenceNumber The sequence number of the last permit of the event, or {@link #NEXT_SEQUENCE}.
+     * @param permits The number of permits the event was weighted with.
+     */
+    private void publish(final long sequenceNumber, final long permits)
+    {
+        final long now = this.timeProvider.getTimestamp();
+        this.averages.mark(now, permits);
+
+        if (this.buffer == null)
+        {
+            synchronized (this.lastEvents)
+            {
+                this.fold(sequenceNumber, permits, now);
+            }
+            return;
+        }
+
+        final long claim = this.buffer.claim();
+        while (!this.buffer.hasRoom(claim))
+        {
+            // Readers have fallen behind, so make room by doing their work
+            this.flush();
+            Thread.yield();
+        }
+        this.buffer.publish(claim, sequenceNumber, permits, now);
+
+        // Fold the buffer in every time it fills halfway, so readers rarely have much to catch up on
+        if ((claim & (this.buffer.capacity() / 2 - 1)) == 0 && claim > 0) this.flush();
+    }
+
+    /**
+     * Note that the {@link Turnstile} has been reset, so that sequence numbers start again from one. Events
+     * already observed stay in the window and the time buckets.
+     */
+    protected void observeReset()
     {
         synchronized (this.lastEvents)
         {
-            final long now = this.timeProvider.getTimestamp();
+            this.catchUp();
+            this.highestSequence = 0L;
+            this.withdrawals.clear();
+        }
+    }
 
-            // If this isn't the first event...
-            if (!this.lastEvents.isEmpty())
-            {
-                final EventRecord lastEvent = this.lastEvents.getFirst();
+    /**
+     * Note that an event counted by a {@link Turnstile} will never pass, because it was cancelled or its thread
+     * was interrupted. Its sequence numbers are not filled in with simulated events when later events are
+     * observed, or are taken back out of the window if they already have been, so the event never shows up as
+     * traffic.
+     *
+     * @param sequenceNumber The sequence number of the last permit of the event within the {@link Turnstile}.
+     * @param permits The number of permits the event was weighted with.
+     */
+    protected void observeWithdrawal(final long sequenceNumber, final long permits)
+    {
+        final long firstSequence = sequenceNumber - permits + 1;
+
+        synchronized (this.lastEvents)
+        {
+            this.catchUp();
 
-                // Check if we've missed one or more events
-                final long missingEvents = (sequenceNumber - 1) - lastEvent.getSequenceNumber();
-                if (missingEvents > 0)
+            if (sequenceNumber <= this.highestSequence) this.lastEvents.remove(firstSequence, sequenceNumber);
+            else this.withdrawals.put(firstSequence, sequenceNumber);
+        }
+    }
+
+    /**
+     * Fold any buffered events into the window of recent events. This has no effect on an observer which is not
+     * deferred, and is done automatically before any statistics are calculated.
+     */
+    public void flush()
+    {
+        if (this.buffer == null) return;
+
+        synchronized (this.lastEvents)
+        {
+            this.buffer.drain(this::fold);
+        }
+    }
+
+    /**
+     * Fold an observed event into the window of recent events. Gaps in the sequence numbers are filled in with
+     * simulated events, and an event arriving after a later one has already filled in its place is left out of
+     * the window. Either way, the event is counted in the time buckets. This must be called while holding the
+     * window's monitor.
+     *
+     * @param observedSequence The sequence number of the last permit of the event within the {@link Turnstile},
+     * or {@link #NEXT_SEQUENCE} to number it directly after the last event in the window.
+     * @param permits The number of permits the event was weighted with.
+     * @param now The time the event was observed.
+     */
+    private void fold(final long observedSequence, final long permits, final long now)
+    {
+        final long sequenceNumber = (observedSequence == TurnstileObserver.NEXT_SEQUENCE)
+                                    ? this.highestSequence + permits
+                                    : observedSequence;
+        final long firstSequence = sequenceNumber - permits + 1;
+
+        // Only real events are counted, so that long-window rates stay exact
+        this.buckets.record(now, permits);
+
+        // Events may be observed out of order. A late event's place in the window has already been filled in.
+        if (sequenceNumber <= this.highestSequence) return;
+
+        // If this isn't the first event...
+        if (this.lastEvents.size() > 0)
+        {
+            final long lastSequence = this.highestSequence;
+            final long lastTime = this.lastEvents.getEventTime(0);
+
+            // Check if we've missed one or more events, leaving out any that will never pass
+            final long missingEvents = (firstSequence - 1) - lastSequence;
+            final long gapEnd = firstSequence - 1 - this.takeWithdrawals(firstSequence - 1);
+            if (missingEvents > 0)
+            {
+                // Populate the window with fake data. Anything older than the window would just be overwritten.
+                long elapsedTime = Math.max(0, now - lastTime);
+                long first = Math.max(lastSequence + 1, gapEnd + 1 - this.lastEvents.capacity());
+                for (long i = first; i <= gapEnd; i++)
                 {
-                    // Populate them with fake data
-                    long elapsedTime = Math.max(0, now - lastEvent.eventTime);
-                    for (long i = lastEvent.getSequenceNumber(); i < sequenceNumber-1; i++)
-                    {
-                        this.recordEvent(i, lastEvent.getEventTime() + (elapsedTime * (i / missingEvents + 1)));
-                    }
+                    this.recordEvent(i, lastTime + (elapsedTime * (i / missingEvents + 1)));
                 }
             }
+        }
 
-            this.recordEvent(sequenceNumber, now);
-            this.pruneWindow();
+        // Permits which would be pushed straight out of the window by the rest are skipped
+        final long recorded = Math.min(permits, this.lastEvents.capacity());
+        for (long i = sequenceNumber - recorded + 1; i <= sequenceNumber; i++)
+        {
+            this.recordEvent(i, now);
         }
+        this.highestSequence = sequenceNumber;
     }
 
     /**
-     * Prunes the window to an ideal size.
+     * Remove the withdrawn ranges of sequence numbers up to the supplied one. This must be called while holding
+     * the window's monitor.
+     *
+     * @param sequenceNumber The highest sequence number to remove withdrawals for.
+     * @return The number of withdrawn sequence numbers that were removed.
      */
-    protected void pruneWindow()
+    private long takeWithdrawals(final long sequenceNumber)
     {
-        while (this.lastEvents.size() > TurnstileObserver.IDEAL_SIZE)
+        long withdrawn = 0L;
+        while (!this.withdrawals.isEmpty() && this.withdrawals.firstEntry().getValue() <= sequenceNumber)
         {
-            this.lastEvents.pollLast();
+            final Map.Entry<Long, Long> range = this.withdrawals.pollFirstEntry();
+            withdrawn += range.getValue() - range.getKey() + 1;
         }
+
+        return withdrawn;
+    }
+
+    /**
+     * Fold any buffered events into the window before it is read. This must be called while holding the
+     * window's monitor.
+     */
+    private void catchUp()
+    {
+        if (this.buffer != null) this.buffer.drain(this::fold);
     }
 
     /**
@@ -115,22 +516,36 @@ public class TurnstileObserver
      */
     public FlowRate calculateEventRate(final int window)
     {
-        final int windowSize = Math.max(window, this.lastEvents.size());
+        final long now;
+        final int windowSize;
+        long windowStart;
+
+        synchronized (this.lastEvents)
+        {
+            this.catchUp();
 
-        final long windowStart = this.lastEvents.stream()
-                                                .limit(windowSize)
-                                                .mapToLong(EventRecord::getEventTime)
-                                                .min()
-                                                .orElse(new Long(this.timeProvider.getTimestamp()));
+            final int size = this.lastEvents.size();
+            windowSize = Math.max(window, size);
+
+            now = this.timeProvider.getTimestamp();
+            windowStart = (size == 0) ? now : Long.MAX_VALUE;
+            for (int i = 0; i < size; i++)
+            {
+                windowStart = Math.min(windowStart, this.lastEvents.getEventTime(i));
+            }
+        }
 
-        long elapsedMillis = this.timeProvider.getTimestamp() - windowStart;
+        long elapsedMillis = now - windowStart;
         Duration elapsedTime = Duration.of(elapsedMillis, ChronoUnit.MILLIS);
 
         return new FlowRate(windowSize, elapsedTime);
     }
 
     /**
-     * Calculate an event rate based upon a time-bounded window.
+     * Calculate an event rate based upon a time-bounded window. While the window of recent events reaches back
+     * far enough, the rate is calculated from it exactly. Otherwise it is calculated from the time buckets, and is
+     * accurate to within one bucket. Windows longer than the {@link #getHorizon() horizon} only count the events
+     * seen within the horizon.
      *
      * @param timeWindow A {@link Duration} of time from the current time to constrain the window.
      * @return The {@link FlowRate} over the described window.
@@ -140,10 +555,23 @@ public class TurnstileObserver
         final long now = this.timeProvider.getTimestamp();
         final long windowBoundary = now - timeWindow.toMillis();
 
-        final long events = this.lastEvents.stream()
-                                           .filter(e -> e.getEventTime() > windowBoundary)
-                                           .map(EventRecord::getEventTime)
-                                           .count();
+        long events = 0;
+        synchronized (this.lastEvents)
+        {
+            this.catchUp();
+
+            // The window may not reach back far enough to see every event
+            final int size = this.lastEvents.size();
+            if (size == this.lastEvents.capacity() && this.lastEvents.getEventTime(size - 1) > windowBoundary)
+            {
+                return new FlowRate(this.buckets.count(now, timeWindow.toMillis()), timeWindow);
+            }
+
+            for (int i = 0; i < this.lastEvents.size(); i++)
+            {
+                if (this.lastEvents.getEventTime(i) > windowBoundary) events++;
+            }
+        }
 
         return new FlowRate(events, timeWindow);
     }
@@ -157,33 +585,38 @@ public class TurnstileObserver
      */
     public FlowRate calculateEventRate()
     {
-        Preconditions.checkState(!this.lastEvents.isEmpty(), "Cannot calculate rate. No events observed.");
+        synchronized (this.lastEvents)
+        {
+            this.catchUp();
 
-        final long now = this.timeProvider.getTimestamp();
-        final long minimumBoundary = now - 20;
-        final long lastRecordTime = this.lastEvents.getFirst().getEventTime();
+            Preconditions.checkState(this.lastEvents.size() > 0, "Cannot calculate rate. No events observed.");
 
-        // Edge case: Only one event
-        if (this.lastEvents.size() == 1)
-        {
-            return new FlowRate(1, Duration.of(now - lastRecordTime, ChronoUnit.MILLIS));
-        }
+            final long now = this.timeProvider.getTimestamp();
+            final long minimumBoundary = now - 20;
+            final long lastRecordTime = this.lastEvents.getEventTime(0);
 
-        long recentWindowStartTime = lastRecordTime-1;
-        long recordCount = 0;
+            // Edge case: Only one event
+            if (this.lastEvents.size() == 1)
+            {
+                return new FlowRate(1, Duration.of(now - lastRecordTime, ChronoUnit.MILLIS));
+            }
 
-        for (EventRecord record : this.lastEvents)
-        {
-            recentWindowStartTime = record.getEventTime();
-            recordCount++;
+            long recentWindowStartTime = lastRecordTime-1;
+            long recordCount = 0;
 
-            // Update the earliest record that fits within the criteria
-            // - At least 20ms of elapsed time
-            // - At least 3 recorded events
-            if (recordCount > 3 && recentWindowStartTime < minimumBoundary) break;
-        }
+            for (int i = 0; i < this.lastEvents.size(); i++)
+            {
+                recentWindowStartTime = this.lastEvents.getEventTime(i);
+                recordCount++;
+
+                // Update the earliest record that fits within the criteria
+                // - At least 20ms of elapsed time
+                // - At least 3 recorded events
+                if (recordCount > 3 && recentWindowStartTime < minimumBoundary) break;
+            }
 
-        return new FlowRate(recordCount-1, Duration.of(lastRecordTime - recentWindowStartTime, ChronoUnit.MILLIS));
+            return new FlowRate(recordCount-1, Duration.of(lastRecordTime - recentWindowStartTime, ChronoUnit.MILLIS));
+        }
     }
 
     /**
@@ -191,45 +624,156 @@ public class TurnstileObserver
      */
     public void logObservedWindow()
     {
-        Turnstile.log.debug("Observer event window: ({} events)", this.lastEvents.size());
-        long origin = this.timeProvider.getTimestamp();
-        for (EventRecord record : this.lastEvents)
+        synchronized (this.lastEvents)
         {
-            final long offset = origin - record.getEventTime();
-            Turnstile.log.debug("Sequence:{} @ {} (+{}ms)", record.getSequenceNumber(), record.getEventTime(), offset);
-            origin = record.getEventTime();
+            this.catchUp();
+
+            Turnstile.log.debug("Observer event window: ({} events)", this.lastEvents.size());
+            long origin = this.timeProvider.getTimestamp();
+            for (int i = 0; i < this.lastEvents.size(); i++)
+            {
+                final long eventTime = this.lastEvents.getEventTime(i);
+                final long offset = origin - eventTime;
+                Turnstile.log.debug("Sequence:{} @ {} (+{}ms)",
+                                    this.lastEvents.getSequenceNumber(i), eventTime, offset);
+                origin = eventTime;
+            }
         }
     }
 
     /**
-     * Fetch the full window of events saved in this observer. The window is of limited size.
+     * Fetch a copy of the full window of events saved in this observer. The window is of limited size, and the
+     * most recent event comes first.
      *
      * @return The window as a {@link Deque}.
      */
     protected Deque<EventRecord> getEventWindow()
     {
-        return this.lastEvents;
+        synchronized (this.lastEvents)
+        {
+            this.catchUp();
+
+            final Deque<EventRecord> window = new ArrayDeque<>(this.lastEvents.size());
+            for (int i = 0; i < this.lastEvents.size(); i++)
+            {
+                window.addLast(new EventRecord(this.lastEvents.getSequenceNumber(i), this.lastEvents.getEventTime(i)));
+            }
+
+            return window;
+        }
     }
 
     /**
-     * Store a new event. This allows for either real (via {@link #observe(long)} or simulated events
-     * (manufactured during a sequence number gap detection).
+     * Store a new event in the window of recent events. This allows for either real (via {@link #observe(long)} or
+     * simulated events (manufactured during a sequence number gap detection). Once the window is full, the oldest
+     * event is discarded to make room. Events are only counted in the time buckets when they are observed, so
+     * simulated events never are.
      *
      * @param sequenceNumber The sequence number of the event.
      * @param systemTime The time the event was observed.
-     * @return The newly recorded {@link EventRecord}.
      */
-    protected EventRecord recordEvent(final long sequenceNumber, final long systemTime)
+    protected void recordEvent(final long sequenceNumber, final long systemTime)
+    {
+        synchronized (this.lastEvents)
+        {
+            this.lastEvents.add(sequenceNumber, systemTime);
+        }
+    }
+
+    /**
+     * An {@link EventWindow} is a fixed-capacity ring of event sequence numbers and times, stored in primitive
+     * arrays so that recording an event never allocates. Events are indexed from the most recent (at zero)
+     * backwards. It is not thread safe; callers synchronize on the window itself.
+     */
+    private static final class EventWindow
     {
-        EventRecord created = new EventRecord(sequenceNumber, systemTime);
-        this.lastEvents.push(created);
+        /** The sequence numbers of the events in the window. */
+        private final long[] sequenceNumbers;
+        /** The times the events in the window were seen. */
+        private final long[] eventTimes;
+        /** The slot that the next event will be written to. */
+        private int next;
+        /** The number of events currently in the window. */
+        private int size;
+
+        /**
+         * Create a new, empty {@link EventWindow}.
+         *
+         * @param capacity The number of events the window can hold.
+         */
+        private EventWindow(final int capacity)
+        {
+            super();
+
+            this.sequenceNumbers = new long[capacity];
+            this.eventTimes = new long[capacity];
+        }
+
+        private int capacity()
+        {
+            return this.eventTimes.length;
+        }
+
+        private int size()
+        {
+            return this.size;
+        }
+
+        private void add(final long sequenceNumber, final long eventTime)
+        {
+            this.sequenceNumbers[this.next] = sequenceNumber;
+            this.eventTimes[this.next] = eventTime;
+
+            this.next = (this.next + 1) % this.capacity();
+            if (this.size < this.capacity()) this.size++;
+        }
+
+        /**
+         * Remove every event with a sequence number in the supplied range, keeping the rest in order.
+         *
+         * @param first The first sequence number to remove.
+         * @param last The last sequence number to remove.
+         */
+        private void remove(final long first, final long last)
+        {
+            final long[] keptSequences = new long[this.size];
+            final long[] keptTimes = new long[this.size];
+            int kept = 0;
+            for (int age = this.size - 1; age >= 0; age--)
+            {
+                final long sequenceNumber = this.getSequenceNumber(age);
+                if (sequenceNumber >= first && sequenceNumber <= last) continue;
+
+                keptSequences[kept] = sequenceNumber;
+                keptTimes[kept] = this.getEventTime(age);
+                kept++;
+            }
+
+            this.next = 0;
+            this.size = 0;
+            for (int i = 0; i < kept; i++) this.add(keptSequences[i], keptTimes[i]);
+        }
 
-        return created;
+        private int slot(final int age)
+        {
+            return (this.next - 1 - age + this.capacity()) % this.capacity();
+        }
+
+        private long getSequenceNumber(final int age)
+        {
+            return this.sequenceNumbers[this.slot(age)];
+        }
+
+        private long getEventTime(final int age)
+        {
+            return this.eventTimes[this.slot(age)];
+        }
     }
 
     /**
      * An {@link EventRecord} is packaged tuple of the event sequence record and the observed time of
-     * an event traversing a {@link Turnstile}.
+     * an event traversing a {@link Turnstile}. Records are only created for
+     * copies of the event window; the observer itself stores events in primitive arrays.
      */
     protected static class EventRecord
     {
@@ -0,0 +1,172 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link WaitStrategy} is a way of holding a thread for the delay imposed by a {@link Meter}. The strategies
+ * trade pacing accuracy against CPU cost: sleeping and parking leave the processor free but may overshoot a short
+ * delay by tens of microseconds or more, while spinning wakes almost exactly on time at the cost of a busy core for
+ * the length of the delay.
+ * <p>
+ * Every strategy waits at least the requested delay and responds to interruption by throwing an
+ * {@link InterruptedException}.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public enum WaitStrategy
+{
+    /**
+     * Sleep with {@link Thread#sleep(long, int)}. Most platforms only sleep in whole milliseconds, so this is only
+     * suitable for rates slow enough that sub-millisecond spacing doesn't matter.
+     */
+    SLEEP
+    {
+        @Override
+        public void await(final long delayNanos) throws InterruptedException
+        {
+            final long deadline = System.nanoTime() + delayNanos;
+            long remaining = delayNanos;
+            while (remaining > 0)
+            {
+                Thread.sleep(TimeUnit.NANOSECONDS.toMillis(remaining), (int)(remaining % 1_000_000L));
+                remaining = deadline - System.nanoTime();
+            }
+        }
+    },
+    /**
+     * Park with {@link LockSupport#parkNanos(long)}. This is the default, and is accurate to within the timer slack
+     * of the operating system, typically around fifty microseconds on Linux.
+     */
+    PARK
+    {
+        @Override
+        public void await(final long delayNanos) throws InterruptedException
+        {
+            final long deadline = System.nanoTime() + delayNanos;
+            long remaining = delayNanos;
+            while (remaining > 0)
+            {
+                LockSupport.parkNanos(remaining);
+                if (Thread.interrupted()) throw new InterruptedException();
+
+                remaining = deadline - System.nanoTime();
+            }
+        }
+    },
+    /**
+     * Park for the bulk of the delay, then yield the processor until the delay is over. This removes most of the
+     * overshoot of parking while keeping the thread off the processor for all but the last stretch of a long
+     * delay. Delays shorter than that stretch are yielded out entirely.
+     */
+    HYBRID
+    {
+        @Override
+        public void await(final long delayNanos) throws InterruptedException
+        {
+            final long deadline = System.nanoTime() + delayNanos;
+            long remaining = delayNanos;
+            while (remaining > WaitStrategy.YIELD_THRESHOLD)
+            {
+                LockSupport.parkNanos(remaining - WaitStrategy.YIELD_THRESHOLD);
+                if (Thread.interrupted()) throw new InterruptedException();
+
+                remaining = deadline - System.nanoTime();
+            }
+            while (remaining > 0)
+            {
+                Thread.yield();
+                if (Thread.interrupted()) throw new InterruptedException();
+
+                remaining = deadline - System.nanoTime();
+            }
+        }
+    },
+    /**
+     * Spin on the clock until the delay is over. This is the most accurate strategy, but occupies a processor for
+     * the entire delay. On Java 9 and later, each iteration hints to the processor that the thread is spinning.
+     */
+    BUSY_SPIN
+    {
+        @Override
+        public void await(final long delayNanos) throws InterruptedException
+        {
+            final long deadline = System.nanoTime() + delayNanos;
+            while (deadline - System.nanoTime() > 0)
+            {
+                SpinHint.onSpinWait();
+                if (Thread.interrupted()) throw new InterruptedException();
+            }
+        }
+    },
+    ;
+
+    /** The remaining delay, in nanoseconds, below which {@link #HYBRID} yields rather than parks. */
+    private static final long YIELD_THRESHOLD = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * Hold the current thread for the supplied amount of real time.
+     *
+     * @param delayNanos The number of nanoseconds to hold the thread. Values of zero or less will not block.
+     * @throws InterruptedException If the thread is interrupted while being held.
+     */
+    public abstract void await(final long delayNanos) throws InterruptedException;
+
+    /**
+     * A holder for {@code Thread.onSpinWait()}, which only exists on Java 9 and later. The method is looked up once,
+     * and the hint is skipped when it is not available.
+     */
+    private static final class SpinHint
+    {
+        /** A handle to {@code Thread.onSpinWait()}, or {@code null} if the runtime doesn't have it. */
+        private static final MethodHandle ON_SPIN_WAIT = SpinHint.lookup();
+
+        private static MethodHandle lookup()
+        {
+            try
+            {
+                return MethodHandles.lookup().findStatic(Thread.class, "onSpinWait", MethodType.methodType(void.class));
+            }
+            catch (NoSuchMethodException | IllegalAccessException e)
+            {
+                return null;
+            }
+        }
+
+        private static void onSpinWait()
+        {
+            if (SpinHint.ON_SPIN_WAIT == null) return;
+
+            try
+            {
+                SpinHint.ON_SPIN_WAIT.invokeExact();
+            }
+            catch (Throwable t)
+            {
+                throw new IllegalStateException("Failed to signal a spin wait.", t);
+            }
+        }
+    }
+}
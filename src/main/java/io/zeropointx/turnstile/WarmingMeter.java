@@ -0,0 +1,341 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import com.google.common.base.Preconditions;
+import io.zeropointx.time.DefaultTimeProvider;
+import io.zeropointx.time.TimeProvider;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A {@link WarmingMeter} paces events like a {@link GcraMeter}, but starts out cold, allowing only a fraction of the
+ * target {@link FlowRate}. Over a warm-up period the allowed rate ramps up to the full target rate, either linearly
+ * or exponentially. This protects downstream resources (caches, freshly-started services) from the full load all at
+ * once.
+ * <p>
+ * The meter starts cold whenever it is reset. It also cools back down when it has been paused, or has seen no
+ * events, for at least the cool-down period, after which the warm-up begins again.
+ * <p>
+ * All state is updated under the meter's own monitor, which is never held while an event is delayed. This makes the
+ * meter concurrent: a {@link Turnstile} will let threads wait for their delays in parallel.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class WarmingMeter extends Meter
+{
+    /** The fraction of the target rate allowed by a cold meter, unless otherwise specified. */
+    public static final double DEFAULT_COLD_FRACTION = 0.25;
+
+    /**
+     * The shape of the ramp from the cold rate to the full target rate.
+     */
+    public enum Curve
+    {
+        /** The rate increases by an equal amount over each part of the warm-up period. */
+        LINEAR
+        {
+            @Override
+            double apply(final double coldFraction, final double progress)
+            {
+                return coldFraction + ((1.0 - coldFraction) * progress);
+            }
+        },
+        /** The rate increases by an equal proportion over each part of the warm-up period. */
+        EXPONENTIAL
+        {
+            @Override
+            double apply(final double coldFraction, final double progress)
+            {
+                return Math.pow(coldFraction, 1.0 - progress);
+            }
+        },
+        ;
+
+        /**
+         * Calculate the fraction of the target rate which is allowed at some point in the warm-up.
+         *
+         * @param coldFraction The fraction of the target rate allowed by a cold meter.
+         * @param progress The progress through the warm-up period, from {@code 0.0} to {@code 1.0}.
+         * @return The fraction of the target rate to allow.
+         */
+        abstract double apply(final double coldFraction, final double progress);
+    }
+
+    /** The rate that events can flow through the meter once it is fully warmed up. */
+    private volatile FlowRate rate;
+    /** The amount of time between events at the full target rate, in nanoseconds. */
+    private double nanosPerEvent;
+    /** The fraction of the target rate allowed by a cold meter. */
+    private final double coldFraction;
+    /** The length of the warm-up period, in nanoseconds. */
+    private final long warmupNanos;
+    /** The shape of the warm-up ramp. */
+    private final Curve curve;
+    /** The length of a pause or idle period that causes the meter to cool down, in nanoseconds. */
+    private final long cooldownNanos;
+
+    /** The active meter time that the current warm-up began, in nanoseconds. */
+    private long warmupStart;
+    /** The active meter time that the next event is scheduled to pass, in nanoseconds. */
+    private long nextSlot;
+    /** The active meter time that the most recent event was scheduled to pass, in nanoseconds. */
+    private long lastSlot;
+    /** The monotonic time of the most recent pause, in nanoseconds. */
+    private long pausedAt;
+
+    /**
+     * Create a new {@link WarmingMeter} with a linear ramp from {@link #DEFAULT_COLD_FRACTION} of the target rate,
+     * which cools down after a pause or idle period as long as the warm-up period.
+     *
+     * @param rate The {@link FlowRate} to allow once the meter is warm.
+     * @param warmupPeriod The amount of time it takes to ramp up to the full rate.
+     */
+    public WarmingMeter(final FlowRate rate, final Duration warmupPeriod)
+    {
+        this(rate, WarmingMeter.DEFAULT_COLD_FRACTION, warmupPeriod, Curve.LINEAR, warmupPeriod);
+    }
+
+    /**
+     * Create a new {@link WarmingMeter}.
+     *
+     * @param rate The {@link FlowRate} to allow once the meter is warm.
+     * @param coldFraction The fraction of the target rate allowed by a cold meter, greater than zero and no more than
+     * one.
+     * @param warmupPeriod The amount of time it takes to ramp up to the full rate.
+     * @param curve The shape of the ramp up to the full rate.
+     * @param cooldownPeriod The length of a pause or idle period that causes the meter to cool down again.
+     */
+    public WarmingMeter(final FlowRate rate, final double coldFraction, final Duration warmupPeriod,
+                        final Curve curve, final Duration cooldownPeriod)
+    {
+        this(rate, coldFraction, warmupPeriod, curve, cooldownPeriod, DefaultTimeProvider.getDefault());
+    }
+
+    /**
+     * Create a new {@link WarmingMeter}, measuring time with the supplied {@link TimeProvider}.
+     *
+     * @param rate The {@link FlowRate} to allow once the meter is warm.
+     * @param coldFraction The fraction of the target rate allowed by a cold meter, greater than zero and no more than
+     * one.
+     * @param warmupPeriod The amount of time it takes to ramp up to the full rate.
+     * @param curve The shape of the ramp up to the full rate.
+     * @param cooldownPeriod The length of a pause or idle period that causes the meter to cool down again.
+     * @param timeProvider The {@link TimeProvider} to use as the meter's clock.
+     */
+    public WarmingMeter(final FlowRate rate, final double coldFraction, final Duration warmupPeriod,
+                        final Curve curve, final Duration cooldownPeriod, final TimeProvider timeProvider)
+    {
+        super(timeProvider);
+
+        Preconditions.checkArgument(coldFraction > 0.0 && coldFraction <= 1.0, "Cold fraction must be in (0, 1].");
+        Preconditions.checkArgument(!warmupPeriod.isNegative(), "Warm-up period must not be negative.");
+        Preconditions.checkArgument(!cooldownPeriod.isNegative() && !cooldownPeriod.isZero(),
+                                    "Cool-down period must be positive.");
+
+        this.rate = rate;
+        this.nanosPerEvent = this.rate.getDuration().toNanos() / this.rate.getVolume();
+        this.coldFraction = coldFraction;
+        this.warmupNanos = warmupPeriod.toNanos();
+        this.curve = curve;
+        this.cooldownNanos = cooldownPeriod.toNanos();
+
+        this.reset();
+    }
+
+    @Override
+    protected Optional<FlowRate> getFlowRate()
+    {
+        return Optional.of(this.rate);
+    }
+
+    @Override
+    protected synchronized void reset()
+    {
+        super.reset();
+
+        this.warmupStart = 0L;
+        this.nextSlot = 0L;
+        this.lastSlot = 0L;
+        this.pausedAt = this.getTimeProvider().getNanoTime();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The next event is rescheduled so that it is spaced from the most recently claimed one at the new rate. The
+     * warm-up carries on from where it is.
+     */
+    @Override
+    protected synchronized void setRate(final FlowRate rate)
+    {
+        this.rate = rate;
+        this.nanosPerEvent = rate.getDuration().toNanos() / rate.getVolume();
+
+        if (this.nextSlot != 0L)
+        {
+            this.nextSlot = this.lastSlot + Math.round(this.nanosPerEvent / this.getWarmthAt(this.lastSlot));
+        }
+    }
+
+    @Override
+    protected synchronized void start()
+    {
+        if (this.getTimeProvider().getNanoTime() - this.pausedAt >= this.cooldownNanos) this.cool();
+
+        super.start();
+    }
+
+    @Override
+    protected synchronized void pause()
+    {
+        super.pause();
+
+        this.pausedAt = this.getTimeProvider().getNanoTime();
+    }
+
+    @Override
+    protected boolean isConcurrent()
+    {
+        return true;
+    }
+
+    /**
+     * Restart the warm-up from the current time. This must be called while holding the meter's monitor.
+     */
+    private void cool()
+    {
+        final long now = this.getActiveNanos();
+
+        this.warmupStart = now;
+        this.nextSlot = Math.max(this.nextSlot, now);
+    }
+
+    /**
+     * Calculate the fraction of the target rate allowed at the given time. This must be called while holding the
+     * meter's monitor.
+     *
+     * @param time The active meter time, in nanoseconds.
+     * @return The fraction of the target rate, from the cold fraction up to {@code 1.0}.
+     */
+    private double getWarmthAt(final long time)
+    {
+        if (this.warmupNanos <= 0L) return 1.0;
+
+        final double progress = Math.min(1.0, Math.max(0.0, (time - this.warmupStart) / (double)this.warmupNanos));
+        return this.curve.apply(this.coldFraction, progress);
+    }
+
+    /**
+     * Fetch the fraction of the target rate currently allowed by this meter.
+     *
+     * @return The fraction of the target rate, from the cold fraction up to {@code 1.0}.
+     */
+    public synchronized double getWarmth()
+    {
+        return this.getWarmthAt(this.getActiveNanos());
+    }
+
+    @Override
+    protected long getDelayFor(final long eventCount)
+    {
+        return Meter.toMillis(this.getDelayNanosFor(eventCount));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The delay is calculated for the next event to claim a slot, regardless of the event count supplied.
+     */
+    @Override
+    protected long getDelayNanosFor(final long eventCount)
+    {
+        return this.getDelayNanosFor(eventCount, 1L);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The delay is calculated for the next event to claim its slots, regardless of the event count supplied. The
+     * permits of a weighted event are all spaced at the warmth of the meter when the first one is due.
+     */
+    @Override
+    protected synchronized long getDelayNanosFor(final long eventCount, final long permits)
+    {
+        final long now = this.getActiveNanos();
+        final long scheduled = Math.max(now, this.nextSlot);
+
+        return scheduled + this.getSpacing(scheduled, permits - 1) - now;
+    }
+
+    @Override
+    protected long claim(final long eventCount)
+    {
+        return this.tryClaim(eventCount, 1L, Long.MAX_VALUE);
+    }
+
+    @Override
+    protected long claim(final long eventCount, final long permits)
+    {
+        return this.tryClaim(eventCount, permits, Long.MAX_VALUE);
+    }
+
+    @Override
+    protected synchronized void refund(final long eventCount, final long permits)
+    {
+        this.nextSlot = Math.max(this.getActiveNanos(), this.nextSlot - this.getSpacing(this.lastSlot, permits));
+    }
+
+    @Override
+    protected long tryClaim(final long eventCount, final long maxDelay)
+    {
+        return this.tryClaim(eventCount, 1L, maxDelay);
+    }
+
+    @Override
+    protected synchronized long tryClaim(final long eventCount, final long permits, final long maxDelay)
+    {
+        final long now = this.getActiveNanos();
+        if (now - this.nextSlot >= this.cooldownNanos) this.cool();
+
+        final long scheduled = Math.max(now, this.nextSlot);
+        final long delay = scheduled + this.getSpacing(scheduled, permits - 1) - now;
+        if (delay > maxDelay) return Meter.REJECTED;
+
+        this.lastSlot = scheduled + this.getSpacing(scheduled, permits - 1);
+        this.nextSlot = scheduled + this.getSpacing(scheduled, permits);
+
+        return delay;
+    }
+
+    /**
+     * Calculate the time taken by a number of events spaced at the warmth of the given time. This must be called
+     * while holding the meter's monitor.
+     *
+     * @param time The active meter time, in nanoseconds.
+     * @param events The number of events.
+     * @return The time taken, in nanoseconds.
+     */
+    private long getSpacing(final long time, final long events)
+    {
+        return Math.round(events * this.nanosPerEvent / this.getWarmthAt(time));
+    }
+}
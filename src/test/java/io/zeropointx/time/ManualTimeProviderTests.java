@@ -87,6 +87,23 @@ public class ManualTimeProviderTests extends BaseTimeProviderTests<ManualTimePro
         assertThat(this.provider.getTimestamp()).isEqualTo(fortyDaysAgo.minusDays(daysAdjust).toInstant().toEpochMilli());
     }
 
+    @Test
+    public void adjustNanos()
+    {
+        this.provider.setTimestamp(3133742);
+        final long start = this.provider.getNanoTime();
+
+        this.provider.adjust(1500, TimeUnit.MICROSECONDS);
+
+        assertThat(this.provider.getTimestamp()).isEqualTo(3133743);
+        assertThat(this.provider.getNanoTime() - start).isEqualTo(1_500_000L);
+
+        this.provider.adjust(-700, TimeUnit.MICROSECONDS);
+
+        assertThat(this.provider.getTimestamp()).isEqualTo(3133742);
+        assertThat(this.provider.getNanoTime() - start).isEqualTo(800_000L);
+    }
+
     @Override
     protected ManualTimeProvider createProvider()
     {
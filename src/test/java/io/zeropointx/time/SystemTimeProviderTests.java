@@ -23,6 +23,7 @@ import org.junit.Test;
 
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -51,6 +52,17 @@ public class SystemTimeProviderTests extends BaseTimeProviderTests<SystemTimePro
         assertThat(now.toInstant().toEpochMilli()).isCloseTo(providerNow.toInstant().toEpochMilli(), Offset.offset(10L));
     }
 
+    @Test
+    public void nanoTime() throws InterruptedException
+    {
+        final long start = this.provider.getNanoTime();
+        Thread.sleep(20);
+
+        final long elapsed = this.provider.getNanoTime() - start;
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(elapsed)).isCloseTo(20L, Offset.offset(10L));
+    }
+
     @Override
     protected SystemTimeProvider createProvider()
     {
@@ -0,0 +1,100 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import io.zeropointx.time.ManualTimeProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class CompositeMeterTests
+{
+    private ManualTimeProvider clock;
+
+    @Before
+    public void setup()
+    {
+        this.clock = new ManualTimeProvider();
+        this.clock.setSystemTimestamp();
+    }
+
+    @Test
+    public void slowestTierWins()
+    {
+        final CompositeMeter meter = new CompositeMeter(FlowRate.parseList("2/s,3/10s"), this.clock);
+        meter.start();
+
+        assertThat(meter.claim(1)).isEqualTo(0L);
+        assertThat(meter.claim(2)).isEqualTo(0L);
+        assertThat(meter.claim(3)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+
+        this.clock.adjust(500, TimeUnit.MILLISECONDS);
+        assertThat(meter.getDelayFor(4)).isEqualTo(2833L);
+    }
+
+    @Test
+    public void allOrNothing()
+    {
+        final TokenBucketMeter fast = new TokenBucketMeter(new FlowRate("10/s"), 10, this.clock);
+        final TokenBucketMeter slow = new TokenBucketMeter(new FlowRate("1/m"), 1, this.clock);
+        final CompositeMeter meter = new CompositeMeter(fast, slow);
+        meter.start();
+
+        assertThat(meter.tryClaim(1, 0L)).isEqualTo(0L);
+        for (int i = 2; i <= 5; i++)
+        {
+            assertThat(meter.tryClaim(i, 0L)).isEqualTo(Meter.REJECTED);
+        }
+
+        // The rejected events took nothing from the fast tier
+        for (int i = 2; i <= 10; i++)
+        {
+            assertThat(fast.claim(i)).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    public void propagatesClock()
+    {
+        final CompositeMeter meter = new CompositeMeter(FlowRate.parseList("1/s"), this.clock);
+
+        meter.start();
+        assertThat(meter.getTiers()).allMatch(tier -> !tier.isPaused());
+
+        meter.pause();
+        assertThat(meter.getTiers()).allMatch(Meter::isPaused);
+    }
+
+    @Test
+    public void parsedTiers()
+    {
+        final CompositeMeter meter = new CompositeMeter("10/s, 500/m,10k/h");
+
+        assertThat(meter.getTiers()).hasSize(3);
+        assertThat(meter.getTiers()).allMatch(tier -> tier instanceof TokenBucketMeter);
+        assertThat(((TokenBucketMeter)meter.getTiers().get(2)).getCapacity()).isEqualTo(10_000L);
+    }
+}
@@ -0,0 +1,117 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import org.assertj.core.data.Offset;
+import org.assertj.core.data.Percentage;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class DelayHistogramTests
+{
+    @Test
+    public void empty()
+    {
+        DelayHistogram.Snapshot snapshot = new DelayHistogram().snapshot();
+
+        assertThat(snapshot.getCount()).isEqualTo(0);
+        assertThat(snapshot.getValueAtPercentile(99)).isEqualTo(0);
+        assertThat(snapshot.getMean()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void percentiles()
+    {
+        DelayHistogram histogram = new DelayHistogram();
+
+        for (long ms = 1; ms <= 1000; ms++)
+        {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+
+        DelayHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(1000);
+        final Percentage precision = Percentage.withPercentage(1.6);
+        assertThat(snapshot.getValueAtPercentile(50)).isCloseTo(TimeUnit.MILLISECONDS.toNanos(500), precision);
+        assertThat(snapshot.getValueAtPercentile(99)).isCloseTo(TimeUnit.MILLISECONDS.toNanos(990), precision);
+        assertThat(snapshot.getValueAtPercentile(99.9)).isCloseTo(TimeUnit.MILLISECONDS.toNanos(999), precision);
+        assertThat(snapshot.getValueAtPercentile(100)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertThat(snapshot.getMean()).isCloseTo(TimeUnit.MICROSECONDS.toNanos(500_500), Offset.offset(1.0));
+    }
+
+    @Test
+    public void smallValuesExact()
+    {
+        DelayHistogram histogram = new DelayHistogram();
+
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(3));
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        histogram.record(-50L);
+
+        DelayHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getValueAtPercentile(0)).isEqualTo(0);
+        assertThat(snapshot.getValueAtPercentile(50)).isEqualTo(TimeUnit.MICROSECONDS.toNanos(3));
+        assertThat(snapshot.getMax()).isEqualTo(TimeUnit.MICROSECONDS.toNanos(100));
+    }
+
+    @Test
+    public void hugeValuesClamped()
+    {
+        DelayHistogram histogram = new DelayHistogram();
+
+        histogram.record(TimeUnit.DAYS.toNanos(3));
+
+        assertThat(histogram.snapshot().getMax())
+                .isEqualTo(TimeUnit.MICROSECONDS.toNanos(DelayHistogram.MAX_TRACKABLE));
+    }
+
+    @Test
+    public void snapshotAndReset()
+    {
+        DelayHistogram histogram = new DelayHistogram();
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(5));
+
+        assertThat(histogram.snapshotAndReset().getCount()).isEqualTo(1);
+        assertThat(histogram.snapshot().getCount()).isEqualTo(0);
+        assertThat(histogram.snapshot().getMax()).isEqualTo(0);
+    }
+
+    @Test
+    public void turnstileRecordsDelays() throws InterruptedException
+    {
+        Turnstile turnstile = new Turnstile(new GcraMeter(new FlowRate("200/s")));
+        turnstile.start();
+
+        for (int i = 0; i < 10; i++) turnstile.pass();
+
+        TurnstileObserver observer = turnstile.getObserver();
+        DelayHistogram.Snapshot meterDelays = observer.getMeterDelayHistogram().snapshot();
+        assertThat(meterDelays.getCount()).isEqualTo(10);
+        assertThat(meterDelays.getMax()).isBetween(TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(5));
+        assertThat(observer.getHoldTimeHistogram().snapshot().getCount()).isEqualTo(10);
+        assertThat(observer.getAdmissionWaitHistogram().snapshot().getCount()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,77 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class EventBucketsTests
+{
+    @Test
+    public void countWithinWindow()
+    {
+        EventBuckets buckets = new EventBuckets(Duration.ofSeconds(10), Duration.ofSeconds(1));
+
+        buckets.record(1_000, 5);
+        buckets.record(1_500, 5);
+        buckets.record(4_200, 3);
+
+        assertThat(buckets.count(4_500, 1_000)).isEqualTo(3);
+        assertThat(buckets.count(4_500, 4_000)).isEqualTo(13);
+        assertThat(buckets.getHorizon()).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void staleBucketsIgnored()
+    {
+        EventBuckets buckets = new EventBuckets(Duration.ofSeconds(4), Duration.ofSeconds(1));
+
+        buckets.record(1_000, 7);
+
+        // A full lap later, the bucket has expired even though nothing has overwritten it
+        assertThat(buckets.count(6_000, 4_000)).isEqualTo(0);
+
+        buckets.record(6_000, 2);
+        assertThat(buckets.count(6_000, 4_000)).isEqualTo(2);
+    }
+
+    @Test
+    public void lateEventsIgnored()
+    {
+        EventBuckets buckets = new EventBuckets(Duration.ofSeconds(2), Duration.ofSeconds(1));
+
+        buckets.record(3_000, 1);
+        buckets.record(0, 10);
+
+        assertThat(buckets.count(3_000, 2_000)).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidResolution()
+    {
+        new EventBuckets(Duration.ofSeconds(1), Duration.ZERO);
+    }
+}
@@ -23,6 +23,7 @@ import org.junit.Test;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -105,6 +106,26 @@ public class FlowRateTests
         assertThat(rate.getDuration()).isEqualTo(Duration.of(1, ChronoUnit.SECONDS));
     }
 
+    @Test
+    public void parseList()
+    {
+        final List<FlowRate> rates = FlowRate.parseList("10/s, 500/m,10k/h");
+
+        assertThat(rates).containsExactly(new FlowRate("10/s"), new FlowRate("500/m"), new FlowRate("10k/h"));
+    }
+
+    @Test
+    public void parseList_single()
+    {
+        assertThat(FlowRate.parseList("5/20s")).containsExactly(new FlowRate("5/20s"));
+    }
+
+    @Test
+    public void parseListFail_badEntry()
+    {
+        assertThatThrownBy(() -> FlowRate.parseList("10/s,,5/m")).isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     public void parseFail_badFactor()
     {
@@ -182,4 +203,15 @@ public class FlowRateTests
         assertThat(rate1.compareTo(rate2)).isZero();
         assertThat(rate2.compareTo(rate1)).isZero();
     }
+
+    @Test
+    public void toStringRoundTrip()
+    {
+        assertThat(new FlowRate("10/s").toString()).isEqualTo("10/s");
+        assertThat(new FlowRate("2.5/10m").toString()).isEqualTo("2.5/10m");
+        assertThat(new FlowRate("10k/h").toString()).isEqualTo("10000/h");
+        assertThat(new FlowRate(3, Duration.ofMillis(1500)).toString()).isEqualTo("3/1500ms");
+        assertThat(new FlowRate(3, Duration.ofSeconds(120)).toString()).isEqualTo("3/2m");
+        assertThat(new FlowRate(new FlowRate("0.25/d").toString())).isEqualTo(new FlowRate("0.25/d"));
+    }
 }
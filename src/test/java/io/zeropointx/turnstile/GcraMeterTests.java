@@ -0,0 +1,203 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import io.zeropointx.time.ManualTimeProvider;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class GcraMeterTests
+{
+    @Test
+    public void simple_rate()
+    {
+        final GcraMeter meter = new GcraMeter(new FlowRate("10/s"));
+
+        assertThat(meter.getDelayFor(1)).isEqualTo(0L);
+        assertThat(meter.claim(1)).isEqualTo(0L);
+        assertThat(meter.getDelayFor(2)).isEqualTo(100L);
+        assertThat(meter.claim(2)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(meter.claim(3)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    public void tryClaim_rejected()
+    {
+        final GcraMeter meter = new GcraMeter(new FlowRate("10/s"));
+
+        final long interval = TimeUnit.MILLISECONDS.toNanos(100);
+
+        assertThat(meter.tryClaim(1, 0L)).isEqualTo(0L);
+        assertThat(meter.tryClaim(2, interval / 2)).isEqualTo(Meter.REJECTED);
+        assertThat(meter.tryClaim(2, interval)).isEqualTo(interval);
+    }
+
+    @Test
+    public void manualClock()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final GcraMeter meter = new GcraMeter(new FlowRate("5k/s"), clock);
+        meter.start();
+
+        assertThat(meter.claim(1)).isEqualTo(0L);
+        assertThat(meter.claim(2)).isEqualTo(200_000L);
+
+        clock.adjust(300, TimeUnit.MICROSECONDS);
+        assertThat(meter.claim(3)).isEqualTo(100_000L);
+    }
+
+    @Test
+    public void reset()
+    {
+        final GcraMeter meter = new GcraMeter(new FlowRate("10/s"));
+
+        meter.claim(1);
+        meter.claim(2);
+        meter.reset();
+
+        assertThat(meter.getDelayFor(1)).isEqualTo(0L);
+    }
+
+    @Test
+    public void concurrentClaims() throws InterruptedException
+    {
+        final GcraMeter meter = new GcraMeter(new FlowRate("1/ms"));
+        final Set<Long> delays = ConcurrentHashMap.newKeySet();
+        final CountDownLatch done = new CountDownLatch(8);
+
+        for (int t = 0; t < 8; t++)
+        {
+            new Thread(() ->
+                       {
+                           for (int i = 0; i < 100; i++) delays.add(meter.claim(i));
+                           done.countDown();
+                       }).start();
+        }
+        done.await();
+
+        assertThat(delays).hasSize(800);
+    }
+
+    @Test
+    public void parallelWaiting() throws InterruptedException
+    {
+        final Turnstile turnstile = new Turnstile(new GcraMeter("50/s"));
+        final List<Thread> threads = new ArrayList<>();
+        turnstile.start();
+
+        LocalDateTime start = LocalDateTime.now();
+        for (int t = 0; t < 10; t++)
+        {
+            threads.add(new Thread(() ->
+                                   {
+                                       try
+                                       {
+                                           turnstile.pass();
+                                       }
+                                       catch (InterruptedException e)
+                                       {
+                                           throw new RuntimeException(e);
+                                       }
+                                   }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) thread.join();
+        Duration elapsed = Duration.between(start, LocalDateTime.now());
+
+        assertThat(turnstile.getEventsSeen()).isEqualTo(10L);
+        assertThat(elapsed.toMillis()).isBetween(170L, 400L);
+    }
+
+    @Test
+    public void setRate()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final GcraMeter meter = new GcraMeter(new FlowRate("10/s"), clock);
+        meter.start();
+
+        assertThat(meter.claim(1)).isEqualTo(0L);
+        assertThat(meter.claim(2)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        // The event already waiting keeps its slot; the next is spaced from it at the new rate
+        meter.setRate(new FlowRate("1/s"));
+        assertThat(meter.getFlowRate()).hasValue(new FlowRate("1/s"));
+        assertThat(meter.claim(3)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(1100));
+        assertThat(meter.claim(4)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(2100));
+    }
+
+    @Test
+    public void setRate_beforeFirstEvent()
+    {
+        final GcraMeter meter = new GcraMeter(new FlowRate("10/s"), new ManualTimeProvider());
+        meter.setRate(new FlowRate("1/s"));
+
+        assertThat(meter.claim(1)).isEqualTo(0L);
+        assertThat(meter.claim(2)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void weighted()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final GcraMeter meter = new GcraMeter(new FlowRate("10/s"), clock);
+        meter.start();
+
+        // The event is held until its last permit is due, and the next event is spaced after all of them
+        assertThat(meter.getDelayNanosFor(5, 5)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(400));
+        assertThat(meter.claim(5, 5)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(400));
+        assertThat(meter.claim(6)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+
+        assertThat(meter.tryClaim(8, 2, TimeUnit.MILLISECONDS.toNanos(650))).isEqualTo(Meter.REJECTED);
+        final long claimed = TimeUnit.MILLISECONDS.toNanos(700);
+        assertThat(meter.tryClaim(8, 2, claimed)).isEqualTo(claimed);
+    }
+
+    @Test
+    public void refund()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final GcraMeter meter = new GcraMeter(new FlowRate("10/s"), clock);
+        meter.start();
+
+        meter.claim(1);
+        meter.claim(2);
+        meter.refund(2, 1);
+        assertThat(meter.claim(3)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        // Refunds never hand out credit for time that has already passed
+        clock.adjust(1, TimeUnit.SECONDS);
+        meter.refund(3, 5);
+        assertThat(meter.claim(4)).isEqualTo(0L);
+        assertThat(meter.claim(5)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+}
@@ -0,0 +1,144 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import io.zeropointx.time.ManualTimeProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class KeyedTurnstileTests
+{
+    private ManualTimeProvider clock;
+
+    @Before
+    public void setup()
+    {
+        this.clock = new ManualTimeProvider();
+        this.clock.setSystemTimestamp();
+    }
+
+    @Test
+    public void independentKeys()
+    {
+        final KeyedTurnstile<String> turnstile = new KeyedTurnstile<>(key -> new FlowRate("1/s"), 100,
+                                                                      Duration.ofMinutes(1), this.clock);
+
+        assertThat(turnstile.tryPass("alpha")).isTrue();
+        assertThat(turnstile.tryPass("alpha")).isFalse();
+        assertThat(turnstile.tryPass("beta")).isTrue();
+        assertThat(turnstile.tryPass("beta")).isFalse();
+
+        this.clock.adjust(1, TimeUnit.SECONDS);
+        assertThat(turnstile.tryPass("alpha")).isTrue();
+        assertThat(turnstile.getKeyCount()).isEqualTo(2L);
+    }
+
+    @Test
+    public void perKeyRates()
+    {
+        final KeyedTurnstile<String> turnstile = new KeyedTurnstile<>(
+                key -> key.equals("fast") ? new FlowRate("10/s") : new FlowRate("1/s"), 100,
+                Duration.ofMinutes(1), this.clock);
+
+        assertThat(turnstile.tryPass("fast")).isTrue();
+        assertThat(turnstile.tryPass("slow")).isTrue();
+
+        this.clock.adjust(100, TimeUnit.MILLISECONDS);
+        assertThat(turnstile.tryPass("fast")).isTrue();
+        assertThat(turnstile.tryPass("slow")).isFalse();
+    }
+
+    @Test
+    public void timedTryPass() throws InterruptedException
+    {
+        final KeyedTurnstile<String> turnstile = new KeyedTurnstile<>(key -> new FlowRate("1/s"), 100,
+                                                                      Duration.ofMinutes(1), this.clock);
+
+        assertThat(turnstile.tryPass("alpha", Duration.ZERO)).isTrue();
+        assertThat(turnstile.tryPass("alpha", Duration.ofMillis(500))).isFalse();
+
+        this.clock.adjust(995, TimeUnit.MILLISECONDS);
+        assertThat(turnstile.tryPass("alpha", Duration.ofMillis(10))).isTrue();
+    }
+
+    @Test
+    public void timedTryPass_unboundedTimeout() throws InterruptedException
+    {
+        final KeyedTurnstile<String> turnstile = new KeyedTurnstile<>(key -> new FlowRate("1/s"), 100,
+                                                                      Duration.ofMinutes(1), this.clock);
+
+        assertThat(turnstile.tryPass("alpha", ChronoUnit.FOREVER.getDuration())).isTrue();
+    }
+
+    @Test
+    public void maximumKeys()
+    {
+        final KeyedTurnstile<Integer> turnstile = new KeyedTurnstile<>(key -> new FlowRate("1/s"), 10,
+                                                                       Duration.ofMinutes(1), this.clock);
+
+        for (int key = 0; key < 100; key++) turnstile.tryPass(key);
+
+        assertThat(turnstile.getKeyCount()).isLessThanOrEqualTo(10L);
+    }
+
+    @Test
+    public void idleTimeout_mustBePositive()
+    {
+        assertThatThrownBy(() -> new KeyedTurnstile<String>(new FlowRate("1/s"), 100, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new KeyedTurnstile<String>(new FlowRate("1/s"), 100, Duration.ofSeconds(-1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void idleEviction()
+    {
+        final KeyedTurnstile<String> turnstile = new KeyedTurnstile<>(key -> new FlowRate("1/h"), 100,
+                                                                      Duration.ofMinutes(1), this.clock);
+
+        assertThat(turnstile.tryPass("alpha")).isTrue();
+        assertThat(turnstile.tryPass("alpha")).isFalse();
+
+        this.clock.adjust(2, TimeUnit.MINUTES);
+
+        // The idle key has been forgotten, so it starts afresh
+        assertThat(turnstile.tryPass("alpha")).isTrue();
+    }
+
+    @Test
+    public void forget()
+    {
+        final KeyedTurnstile<String> turnstile = new KeyedTurnstile<>(new FlowRate("1/h"), 100, Duration.ofHours(2));
+
+        assertThat(turnstile.tryPass("alpha")).isTrue();
+        turnstile.forget("alpha");
+        assertThat(turnstile.tryPass("alpha")).isTrue();
+    }
+}
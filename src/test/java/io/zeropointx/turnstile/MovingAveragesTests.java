@@ -0,0 +1,108 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import io.zeropointx.time.ManualTimeProvider;
+import org.assertj.core.data.Offset;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class MovingAveragesTests
+{
+    @Test
+    public void firstTickSeeds()
+    {
+        MovingAverages averages = new MovingAverages(0L, Duration.ofMinutes(1), Duration.ofMinutes(15));
+
+        averages.mark(1_000L, 50);
+        assertThat(averages.getRate(4_999L, 0)).isEqualTo(0.0);
+
+        assertThat(averages.getRate(5_000L, 0)).isEqualTo(10.0);
+        assertThat(averages.getRate(5_000L, 1)).isEqualTo(10.0);
+    }
+
+    @Test
+    public void steadyRateConverges()
+    {
+        MovingAverages averages = new MovingAverages(0L, Duration.ofMinutes(1));
+
+        for (long now = 0; now < 600_000L; now += 100)
+        {
+            averages.mark(now, 1);
+        }
+
+        assertThat(averages.getRate(600_000L, 0)).isEqualTo(10.0, Offset.offset(0.01));
+    }
+
+    @Test
+    public void idleDecaysInOneStep()
+    {
+        MovingAverages averages = new MovingAverages(0L, Duration.ofMinutes(1));
+
+        averages.mark(0L, 50);
+        assertThat(averages.getRate(5_000L, 0)).isEqualTo(10.0);
+
+        // One minute of idle ticks decays a one minute average by a factor of e
+        assertThat(averages.getRate(65_000L, 0)).isEqualTo(10.0 / Math.E, Offset.offset(0.001));
+    }
+
+    @Test
+    public void observerRates()
+    {
+        ManualTimeProvider time = new ManualTimeProvider();
+        time.setTimestamp(0L);
+        TurnstileObserver observer = new TurnstileObserver(time);
+
+        for (long seq = 1; seq <= 6000; seq++)
+        {
+            observer.observe(seq);
+            time.adjust(50, TimeUnit.MILLISECONDS);
+        }
+
+        assertThat(observer.getMovingAverageCount()).isEqualTo(3);
+        assertThat(observer.getMovingAveragePeriod(1)).isEqualTo(Duration.ofMinutes(5));
+        assertThat(observer.getOneMinuteRate()).isEqualTo(20.0, Offset.offset(0.5));
+
+        // After a quiet minute, the shorter averages have decayed further
+        time.adjust(60, TimeUnit.SECONDS);
+        assertThat(observer.getOneMinuteRate()).isLessThan(observer.getFiveMinuteRate());
+        assertThat(observer.getFiveMinuteRate()).isLessThan(observer.getFifteenMinuteRate());
+        assertThat(observer.getFifteenMinuteRate()).isEqualTo(20.0 * Math.exp(-60.0 / 900), Offset.offset(0.5));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void customPeriodsHaveNoDefaultGetters()
+    {
+        TurnstileObserver observer = new TurnstileObserver(new ManualTimeProvider(), false,
+                                                           TurnstileObserver.DEFAULT_HORIZON,
+                                                           TurnstileObserver.DEFAULT_RESOLUTION,
+                                                           Collections.singletonList(Duration.ofSeconds(30)));
+
+        observer.getOneMinuteRate();
+    }
+}
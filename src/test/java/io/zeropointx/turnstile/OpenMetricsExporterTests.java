@@ -0,0 +1,150 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class OpenMetricsExporterTests
+{
+    @Test
+    public void render() throws InterruptedException
+    {
+        Turnstile turnstile = new Turnstile(new GcraMeter(new FlowRate("1/h")));
+        turnstile.start();
+        turnstile.pass();
+        assertThat(turnstile.tryPass()).isFalse();
+        assertThat(turnstile.tryPass(Duration.ofMillis(1))).isFalse();
+
+        OpenMetricsExporter exporter = new OpenMetricsExporter();
+        exporter.register("api \"v1\"", turnstile);
+
+        String text = exporter.scrape().toString();
+        assertThat(text).contains("# TYPE turnstile_events counter\n")
+                        .contains("turnstile_events_total{turnstile=\"api \\\"v1\\\"\"} 1\n")
+                        .contains("turnstile_rejected_total{turnstile=\"api \\\"v1\\\"\"} 2\n")
+                        .contains("turnstile_waiters{turnstile=\"api \\\"v1\\\"\"} 0\n")
+                        .contains("turnstile_blocked{turnstile=\"api \\\"v1\\\"\"} 0\n")
+                        .contains("turnstile_rate{turnstile=\"api \\\"v1\\\"\",period=\"PT1M\"}")
+                        .contains("turnstile_meter_delay_seconds_bucket"
+                                  + "{turnstile=\"api \\\"v1\\\"\",le=\"0.0001\"} 1\n")
+                        .contains("turnstile_meter_delay_seconds_bucket{turnstile=\"api \\\"v1\\\"\",le=\"+Inf\"} 1\n")
+                        .contains("turnstile_meter_delay_seconds_count{turnstile=\"api \\\"v1\\\"\"} 1\n")
+                        .endsWith("# EOF\n");
+    }
+
+    @Test
+    public void familiesGrouped()
+    {
+        OpenMetricsExporter exporter = new OpenMetricsExporter();
+        exporter.register("a", new Turnstile(new NoopMeter()));
+        exporter.register("b", new Turnstile(new NoopMeter()));
+
+        String text = exporter.scrape().toString();
+        int eventsA = text.indexOf("turnstile_events_total{turnstile=\"a\"}");
+        int eventsB = text.indexOf("turnstile_events_total{turnstile=\"b\"}");
+        int rejected = text.indexOf("# TYPE turnstile_rejected");
+
+        assertThat(eventsA).isLessThan(eventsB);
+        assertThat(eventsB).isLessThan(rejected);
+
+        exporter.unregister("a");
+        assertThat(exporter.scrape().toString()).doesNotContain("turnstile=\"a\"");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateName()
+    {
+        OpenMetricsExporter exporter = new OpenMetricsExporter();
+        exporter.register("a", new Turnstile(new NoopMeter()));
+        exporter.register("a", new Turnstile(new NoopMeter()));
+    }
+
+    @Test
+    public void waitersCounted() throws Exception
+    {
+        Turnstile turnstile = new Turnstile(new NoopMeter());
+        turnstile.block();
+
+        Thread waiter = new Thread(() -> {
+            try
+            {
+                turnstile.pass();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        while (turnstile.getWaiterCount() == 0) Thread.sleep(1);
+        assertThat(turnstile.getWaiterCount()).isEqualTo(1);
+
+        turnstile.unblock();
+        waiter.join();
+        assertThat(turnstile.getWaiterCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void serve() throws Exception
+    {
+        OpenMetricsExporter exporter = new OpenMetricsExporter();
+        exporter.register("café", new Turnstile(new NoopMeter()));
+
+        HttpServer server = exporter.serve(new InetSocketAddress("127.0.0.1", 0));
+        try
+        {
+            URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/metrics");
+            HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+
+            assertThat(connection.getResponseCode()).isEqualTo(200);
+            assertThat(connection.getContentType()).isEqualTo(OpenMetricsExporter.CONTENT_TYPE);
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (InputStream in = connection.getInputStream())
+            {
+                byte[] chunk = new byte[1024];
+                int read;
+                while ((read = in.read(chunk)) >= 0) body.write(chunk, 0, read);
+            }
+
+            assertThat(new String(body.toByteArray(), StandardCharsets.UTF_8))
+                    .isEqualTo(exporter.scrape().toString());
+        }
+        finally
+        {
+            server.stop(0);
+        }
+    }
+}
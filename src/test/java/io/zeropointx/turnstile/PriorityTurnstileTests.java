@@ -0,0 +1,261 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class PriorityTurnstileTests
+{
+    private List<String> claims;
+    private Turnstile turnstile;
+    private List<Thread> threads;
+
+    @Before
+    public void setup()
+    {
+        this.claims = Collections.synchronizedList(new ArrayList<>());
+        this.turnstile = new Turnstile(new TestingMeter()
+        {
+            @Override
+            protected long claim(final long eventCount)
+            {
+                PriorityTurnstileTests.this.claims.add(Thread.currentThread().getName());
+                return 0L;
+            }
+        });
+        this.threads = new ArrayList<>();
+    }
+
+    private Thread spawn(final PriorityTurnstile<String> priority, final String priorityClass)
+    {
+        final Thread thread = new Thread(() ->
+                                         {
+                                             try
+                                             {
+                                                 priority.pass(priorityClass);
+                                             }
+                                             catch (InterruptedException e)
+                                             {
+                                                 Thread.currentThread().interrupt();
+                                             }
+                                         }, priorityClass);
+        thread.start();
+        this.threads.add(thread);
+
+        return thread;
+    }
+
+    /**
+     * Hold the turnstile with a single event, then queue up a backlog behind it.
+     */
+    private void backlog(final PriorityTurnstile<String> priority, final int interactive, final int batch)
+    {
+        this.turnstile.block();
+        this.spawn(priority, "batch");
+        while (this.claims.isEmpty()) Thread.yield();
+
+        for (int i = 0; i < interactive; i++) this.spawn(priority, "interactive");
+        for (int i = 0; i < batch; i++) this.spawn(priority, "batch");
+        while (priority.getQueueLength("interactive") < interactive || priority.getQueueLength("batch") < batch)
+        {
+            Thread.yield();
+        }
+    }
+
+    private void drain() throws InterruptedException
+    {
+        this.turnstile.unblock();
+        for (Thread thread : this.threads) thread.join();
+    }
+
+    @Test
+    public void weightedFair() throws InterruptedException
+    {
+        final PriorityTurnstile<String> priority =
+                new PriorityTurnstile<>(this.turnstile, ImmutableMap.of("interactive", 3, "batch", 1));
+        assertThat(priority.getPolicy()).isEqualTo(PriorityTurnstile.Policy.WEIGHTED_FAIR);
+        assertThat(priority.getClasses()).containsExactly("interactive", "batch");
+
+        this.backlog(priority, 8, 8);
+        this.drain();
+
+        // The batch event holding the turnstile had already used its share when the backlog arrived
+        assertThat(this.claims.subList(1, 9)).containsExactly("interactive", "interactive", "interactive",
+                                                              "interactive", "batch", "interactive",
+                                                              "interactive", "interactive");
+        assertThat(this.claims).hasSize(17);
+    }
+
+    @Test
+    public void weightedFair_permits() throws InterruptedException
+    {
+        final PriorityTurnstile<String> priority =
+                new PriorityTurnstile<>(this.turnstile, ImmutableMap.of("interactive", 1, "batch", 1));
+
+        this.turnstile.block();
+        this.spawn(priority, "interactive");
+        while (this.claims.isEmpty()) Thread.yield();
+
+        // A single large batch event costs as much as four interactive ones
+        final Thread large = new Thread(() ->
+                                        {
+                                            try
+                                            {
+                                                priority.pass("batch", 4);
+                                            }
+                                            catch (InterruptedException e)
+                                            {
+                                                Thread.currentThread().interrupt();
+                                            }
+                                        }, "batch");
+        large.start();
+        this.threads.add(large);
+        for (int i = 0; i < 6; i++) this.spawn(priority, "interactive");
+        while (priority.getQueueLength("interactive") < 6 || priority.getQueueLength("batch") < 1) Thread.yield();
+
+        this.drain();
+
+        assertThat(this.claims.subList(1, 8)).containsExactly("batch", "interactive", "interactive", "interactive",
+                                                              "interactive", "interactive", "interactive");
+    }
+
+    @Test
+    public void strict() throws InterruptedException
+    {
+        final PriorityTurnstile<String> priority =
+                new PriorityTurnstile<>(this.turnstile, ImmutableMap.of("interactive", 1, "batch", 1),
+                                        PriorityTurnstile.Policy.STRICT);
+
+        this.backlog(priority, 5, 5);
+        this.drain();
+
+        assertThat(this.claims.subList(1, 6)).containsOnly("interactive");
+        assertThat(this.claims.subList(6, 11)).containsOnly("batch");
+    }
+
+    @Test
+    public void idleClassesDonate() throws InterruptedException
+    {
+        final Turnstile limited = new Turnstile(new GcraMeter("100/s"));
+        final PriorityTurnstile<String> priority =
+                new PriorityTurnstile<>(limited, ImmutableMap.of("interactive", 9, "batch", 1));
+
+        // With the interactive class idle, batch events get the whole rate rather than a tenth of it
+        final long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) priority.pass("batch");
+
+        assertThat(System.nanoTime() - start).isLessThan(500_000_000L);
+    }
+
+    @Test
+    public void observers() throws InterruptedException
+    {
+        final PriorityTurnstile<String> priority =
+                new PriorityTurnstile<>(this.turnstile, ImmutableMap.of("interactive", 2, "batch", 1));
+
+        this.backlog(priority, 3, 2);
+        this.drain();
+        priority.pass("batch", 5);
+
+        assertThat(priority.getObserver("interactive").getHoldTimeHistogram().snapshot().getCount()).isEqualTo(3L);
+        assertThat(priority.getObserver("batch").getHoldTimeHistogram().snapshot().getCount()).isEqualTo(4L);
+        assertThat(priority.getObserver("batch").getAdmissionWaitHistogram().snapshot().getMax()).isGreaterThan(0L);
+        assertThat(priority.getObserver("interactive")).isNotSameAs(priority.getObserver("batch"));
+    }
+
+    @Test
+    public void observers_concurrent() throws InterruptedException
+    {
+        final PriorityTurnstile<String> priority =
+                new PriorityTurnstile<>(this.turnstile, ImmutableMap.of("interactive", 2, "batch", 1));
+
+        for (int t = 0; t < 8; t++)
+        {
+            final String priorityClass = (t % 2 == 0) ? "interactive" : "batch";
+            final Thread thread = new Thread(() ->
+                                             {
+                                                 try
+                                                 {
+                                                     for (int i = 0; i < 500; i++) priority.pass(priorityClass, 2);
+                                                 }
+                                                 catch (InterruptedException e)
+                                                 {
+                                                     Thread.currentThread().interrupt();
+                                                 }
+                                             });
+            thread.start();
+            this.threads.add(thread);
+        }
+        for (Thread thread : this.threads) thread.join();
+
+        // Each class's sequence numbers reach its observer in order, so every permit is counted exactly once
+        for (String priorityClass : priority.getClasses())
+        {
+            final TurnstileObserver observer = priority.getObserver(priorityClass);
+            assertThat(observer.calculateEventRate(Duration.ofMinutes(1)).getVolume()).isEqualTo(4000.0);
+            assertThat(observer.getEventWindow().getFirst().getSequenceNumber()).isEqualTo(4000L);
+            assertThat(observer.getEventWindow()).hasSize(TurnstileObserver.IDEAL_SIZE);
+        }
+    }
+
+    @Test
+    public void interruptedWhileQueued() throws InterruptedException
+    {
+        final PriorityTurnstile<String> priority =
+                new PriorityTurnstile<>(this.turnstile, ImmutableMap.of("interactive", 1, "batch", 1));
+
+        this.backlog(priority, 1, 0);
+        final Thread queued = this.threads.get(1);
+        queued.interrupt();
+        queued.join();
+        assertThat(priority.getQueueLength("interactive")).isZero();
+
+        this.drain();
+        priority.pass("interactive");
+
+        assertThat(this.claims).containsExactly("batch", "main");
+    }
+
+    @Test
+    public void unknownClass()
+    {
+        final PriorityTurnstile<String> priority =
+                new PriorityTurnstile<>(this.turnstile, ImmutableMap.of("interactive", 1));
+
+        assertThat(priority.getWeight("interactive")).isEqualTo(1.0);
+        assertThatThrownBy(() -> priority.pass("batch")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> priority.pass("interactive", 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PriorityTurnstile<>(this.turnstile, ImmutableMap.of("zero", 0)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -18,13 +18,17 @@
 
 package io.zeropointx.turnstile;
 
+import io.zeropointx.time.ManualTimeProvider;
 import org.assertj.core.data.Offset;
 import org.junit.Test;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * @author jeff@darkware.org
@@ -70,5 +74,176 @@ public class RateControlledMeterTests
         assertThat(meter.getDelayFor(300)).isEqualTo(1L);
     }
 
+    @Test
+    public void submilli_nanos()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final RateControlledMeter meter = new RateControlledMeter(new FlowRate("5k/s"), clock);
+        meter.start();
+
+        assertThat(meter.getDelayNanosFor(1)).isEqualTo(200_000L);
+
+        clock.adjust(350, TimeUnit.MICROSECONDS);
+        assertThat(meter.getDelayNanosFor(1)).isEqualTo(-150_000L);
+        assertThat(meter.getDelayNanosFor(2)).isEqualTo(50_000L);
+    }
+
+    @Test
+    public void monotonicClock()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final RateControlledMeter meter = new RateControlledMeter(new FlowRate("10/s"), clock);
+        meter.start();
 
+        clock.adjust(1, TimeUnit.SECONDS);
+        assertThat(meter.getDelayFor(10)).isEqualTo(0L);
+
+        meter.pause();
+        clock.adjust(1, TimeUnit.HOURS);
+        meter.start();
+        assertThat(meter.getDelayFor(11)).isEqualTo(100L);
+    }
+
+    @Test
+    public void setRate_rebasesFromNow()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final RateControlledMeter meter = new RateControlledMeter(new FlowRate("10/s"), clock);
+        meter.start();
+
+        // Event 10 is scheduled at 1s; half of that has passed
+        clock.adjust(500, TimeUnit.MILLISECONDS);
+        assertThat(meter.getDelayNanosFor(10)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+
+        // Five events were allowed by now; the remaining five are spaced at the new rate
+        meter.setRate(new FlowRate("1/s"));
+        assertThat(meter.getFlowRate()).hasValue(new FlowRate("1/s"));
+        assertThat(meter.getDelayNanosFor(5)).isEqualTo(0L);
+        assertThat(meter.getDelayNanosFor(6)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        assertThat(meter.getDelayNanosFor(10)).isEqualTo(TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    public void setRate_keepsCredit()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final RateControlledMeter meter = new RateControlledMeter(new FlowRate("10/s"), clock);
+        meter.start();
+
+        // Nothing passed in the first second, so ten events are owed
+        clock.adjust(1, TimeUnit.SECONDS);
+        meter.setRate(new FlowRate("100/s"));
+
+        assertThat(meter.getDelayNanosFor(10)).isEqualTo(0L);
+        assertThat(meter.getDelayNanosFor(11)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    @Test
+    public void setRate_survivesReset()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final RateControlledMeter meter = new RateControlledMeter(new FlowRate("10/s"), clock);
+        meter.setRate(new FlowRate("2/s"));
+        meter.reset();
+
+        assertThat(meter.getDelayNanosFor(1)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    public void maxCredit_events()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final RateControlledMeter meter = new RateControlledMeter(new FlowRate("10/s"), 3L, clock);
+        meter.start();
+
+        // A hundred events are owed after the idle period, but only three may be banked
+        clock.adjust(10, TimeUnit.SECONDS);
+        assertThat(meter.getDelayNanosFor(1)).isLessThanOrEqualTo(0L);
+
+        for (long event = 1; event <= 4; event++) assertThat(meter.claim(event)).isLessThanOrEqualTo(0L);
+        assertThat(meter.claim(5)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(meter.claim(6)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    public void maxCredit_duration()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final RateControlledMeter meter = new RateControlledMeter(new FlowRate("10/s"), Duration.ofMillis(250), clock);
+        meter.start();
+
+        clock.adjust(10, TimeUnit.SECONDS);
+        assertThat(meter.getDelayNanosFor(1)).isEqualTo(-TimeUnit.MILLISECONDS.toNanos(250));
+
+        assertThat(meter.claim(1)).isEqualTo(-TimeUnit.MILLISECONDS.toNanos(250));
+        assertThat(meter.claim(3)).isEqualTo(-TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(meter.claim(4)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void maxCredit_unboundedByDefault()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final RateControlledMeter meter = new RateControlledMeter(new FlowRate("10/s"), clock);
+        meter.start();
+
+        clock.adjust(10, TimeUnit.SECONDS);
+        assertThat(meter.claim(1)).isEqualTo(-TimeUnit.MILLISECONDS.toNanos(9900));
+        assertThat(meter.claim(100)).isEqualTo(0L);
+    }
+
+    @Test
+    public void maxCredit_durationTooLargeForNanos()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final RateControlledMeter meter = new RateControlledMeter(new FlowRate("10/s"),
+                                                                  ChronoUnit.FOREVER.getDuration(), clock);
+        meter.start();
+
+        clock.adjust(10, TimeUnit.SECONDS);
+        assertThat(meter.claim(1)).isEqualTo(-TimeUnit.MILLISECONDS.toNanos(9900));
+    }
+
+    @Test
+    public void maxCredit_durationChecked()
+    {
+        final FlowRate rate = new FlowRate("10/s");
+
+        assertThatThrownBy(() -> new RateControlledMeter(rate, (Duration)null))
+                .isInstanceOf(NullPointerException.class)
+                .hasMessageContaining("maximum credit");
+        assertThatThrownBy(() -> new RateControlledMeter(rate, Duration.ofSeconds(-1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void weighted()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final RateControlledMeter meter = new RateControlledMeter(new FlowRate("10/s"), 2L, clock);
+        meter.start();
+
+        assertThat(meter.getDelayNanosFor(5, 5)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(meter.claim(5, 5)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+
+        // After a long idle period, only the credit is forgiven: the rest of the event is paced at the rate
+        clock.adjust(10, TimeUnit.SECONDS);
+        assertThat(meter.getDelayNanosFor(10, 5)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+        assertThat(meter.claim(10, 5)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+        assertThat(meter.claim(11)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(300));
+    }
+
+    @Test
+    public void refund()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final RateControlledMeter meter = new RateControlledMeter(new FlowRate("10/s"), clock);
+        meter.start();
+
+        for (long event = 1; event <= 3; event++) meter.claim(event);
+        meter.refund(3, 1);
+
+        // Event four takes the slot that event three gave back
+        assertThat(meter.getDelayNanosFor(4)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(300));
+    }
 }
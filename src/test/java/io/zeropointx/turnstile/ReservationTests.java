@@ -0,0 +1,166 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import io.zeropointx.time.ManualTimeProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class ReservationTests
+{
+    private ManualTimeProvider clock;
+    private Turnstile turnstile;
+
+    @Before
+    public void setup()
+    {
+        this.clock = new ManualTimeProvider();
+        this.turnstile = new Turnstile(new GcraMeter(new FlowRate("10/s"), this.clock));
+        this.turnstile.start();
+    }
+
+    @Test
+    public void schedule()
+    {
+        final Reservation first = this.turnstile.reserve();
+        final Reservation second = this.turnstile.reserve(2);
+
+        assertThat(first.getPermits()).isEqualTo(1L);
+        assertThat(second.getPermits()).isEqualTo(2L);
+        assertThat(first.getDelay()).isEqualTo(Duration.ZERO);
+        assertThat(second.getDelay()).isGreaterThan(Duration.ofMillis(150)).isLessThanOrEqualTo(Duration.ofMillis(200));
+        assertThat(this.turnstile.getEventsSeen()).isEqualTo(3L);
+    }
+
+    @Test
+    public void cancel() throws InterruptedException
+    {
+        this.turnstile.reserve();
+        final Reservation second = this.turnstile.reserve();
+        final Reservation third = this.turnstile.reserve();
+
+        assertThat(third.cancel()).isTrue();
+        assertThat(third.cancel()).isFalse();
+        assertThat(third.refund()).isFalse();
+        assertThat(third.isCancelled()).isTrue();
+        assertThatThrownBy(third::await).isInstanceOf(CancellationException.class);
+
+        // The next event takes the cancelled slot
+        final Reservation fourth = this.turnstile.reserve();
+        assertThat(fourth.getScheduledNanos() - second.getScheduledNanos())
+                .isBetween(Duration.ofMillis(100).toNanos(), Duration.ofMillis(150).toNanos());
+    }
+
+    @Test
+    public void await() throws InterruptedException
+    {
+        final Turnstile fast = new Turnstile(new GcraMeter(new FlowRate("1k/s"), this.clock));
+        fast.start();
+
+        final Reservation reservation = fast.reserve(5);
+        assertThat(reservation.refund()).isFalse();
+
+        final long before = System.nanoTime();
+        reservation.await();
+        assertThat(System.nanoTime()).isGreaterThanOrEqualTo(reservation.getScheduledNanos());
+        assertThat(System.nanoTime() - before).isGreaterThanOrEqualTo(Duration.ofMillis(3).toNanos());
+        assertThat(reservation.isPassed()).isTrue();
+        assertThat(reservation.cancel()).isFalse();
+
+        // Awaiting again returns immediately
+        reservation.await();
+    }
+
+    @Test
+    public void refund() throws InterruptedException
+    {
+        final Turnstile fast = new Turnstile(new GcraMeter(new FlowRate("1k/s"), this.clock));
+        fast.start();
+
+        final Reservation reservation = fast.reserve(5);
+        reservation.await();
+        assertThat(reservation.refund()).isTrue();
+        assertThat(reservation.refund()).isFalse();
+        assertThat(reservation.isPassed()).isTrue();
+
+        // Without the refund, the last permit would be due 9ms in
+        assertThat(fast.reserve(5).getDelay()).isLessThanOrEqualTo(Duration.ofMillis(4));
+    }
+
+    @Test
+    public void interruptedPassIsRefunded() throws InterruptedException
+    {
+        this.turnstile.pass();
+
+        Thread.currentThread().interrupt();
+        assertThatThrownBy(this.turnstile::pass).isInstanceOf(InterruptedException.class);
+
+        // The interrupted event never passed, so the next one is due where it would have been
+        assertThat(this.turnstile.getEventsSeen()).isEqualTo(1L);
+        assertThat(this.turnstile.reserve().getDelay()).isGreaterThan(Duration.ofMillis(50))
+                                                       .isLessThanOrEqualTo(Duration.ofMillis(100));
+    }
+
+    @Test
+    public void cancelledEventsAreNotObserved() throws InterruptedException
+    {
+        final Reservation first = this.turnstile.reserve();
+        final Reservation second = this.turnstile.reserve();
+        final Reservation third = this.turnstile.reserve();
+
+        second.cancel();
+        first.await();
+        third.await();
+
+        // The gap left by the cancelled event is not filled in as if it had passed
+        final TurnstileObserver observer = this.turnstile.getObserver();
+        assertThat(this.turnstile.getEventsSeen()).isEqualTo(2L);
+        assertThat(observer.getEventWindow()).hasSize(2);
+        assertThat(observer.calculateEventRate(Duration.ofMinutes(1)).getVolume()).isEqualTo(2.0);
+    }
+
+    @Test
+    public void cancelledAfterLaterEventsPassed() throws InterruptedException
+    {
+        final Reservation first = this.turnstile.reserve();
+        final Reservation second = this.turnstile.reserve();
+        final Reservation third = this.turnstile.reserve();
+
+        first.await();
+        third.await();
+        final TurnstileObserver observer = this.turnstile.getObserver();
+        assertThat(observer.getEventWindow()).hasSize(3);
+
+        // The pending event was filled in by the gap it left, and is taken back out once it is cancelled
+        second.cancel();
+        assertThat(this.turnstile.getEventsSeen()).isEqualTo(2L);
+        assertThat(observer.getEventWindow()).hasSize(2);
+        assertThat(observer.calculateEventRate(Duration.ofMinutes(1)).getVolume()).isEqualTo(2.0);
+    }
+}
@@ -0,0 +1,203 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import io.zeropointx.time.ManualTimeProvider;
+import org.assertj.core.data.Percentage;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class StripedMeterTests
+{
+    @Test
+    public void borrowsIdleStripes()
+    {
+        final StripedMeter meter = new StripedMeter(new FlowRate("4/s"), 4, new ManualTimeProvider());
+
+        for (int i = 1; i <= 4; i++)
+        {
+            assertThat(meter.claim(i)).isEqualTo(0L);
+        }
+
+        assertThat(meter.getDelayFor(5)).isEqualTo(1000L);
+        assertThat(meter.claim(5)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void tryClaim_rejected()
+    {
+        final StripedMeter meter = new StripedMeter(new FlowRate("2/s"), 2, new ManualTimeProvider());
+
+        assertThat(meter.tryClaim(1, 0L)).isEqualTo(0L);
+        assertThat(meter.tryClaim(2, 0L)).isEqualTo(0L);
+        assertThat(meter.tryClaim(3, 0L)).isEqualTo(Meter.REJECTED);
+    }
+
+    @Test
+    public void steadyRate()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final StripedMeter meter = new StripedMeter(new FlowRate("100/s"), 4, clock);
+        meter.start();
+
+        // After the initial burst of one event per stripe, events are spaced at the aggregate rate
+        for (int i = 1; i <= 4; i++) meter.claim(i);
+        for (int i = 5; i <= 20; i++)
+        {
+            final long delay = meter.claim(i);
+            assertThat(delay).isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(40));
+            clock.adjust(10, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test
+    public void concurrentBound() throws InterruptedException
+    {
+        final int stripes = 4;
+        final StripedMeter meter = new StripedMeter(new FlowRate("1/ms"), stripes, new ManualTimeProvider());
+        final Map<Long, AtomicInteger> slots = new ConcurrentHashMap<>();
+        final CountDownLatch done = new CountDownLatch(8);
+
+        for (int t = 0; t < 8; t++)
+        {
+            new Thread(() ->
+                       {
+                           for (int i = 0; i < 100; i++)
+                           {
+                               final long delay = meter.claim(i);
+                               slots.computeIfAbsent(delay, d -> new AtomicInteger()).incrementAndGet();
+                           }
+                           done.countDown();
+                       }).start();
+        }
+        done.await();
+
+        // With the clock frozen, no more than one event per stripe may share a scheduled time
+        assertThat(slots.values().stream().mapToInt(AtomicInteger::get).sum()).isEqualTo(800);
+        assertThat(slots.values()).allMatch(count -> count.get() <= stripes);
+        assertThat(slots).hasSize(800 / stripes);
+    }
+
+    @Test
+    public void turnstile()
+    {
+        final StripedTurnstile turnstile = new StripedTurnstile(new FlowRate("3/s"), 3);
+
+        assertThat(turnstile.getStripeCount()).isEqualTo(3);
+        assertThat(turnstile.tryPass()).isTrue();
+        assertThat(turnstile.tryPass()).isTrue();
+        assertThat(turnstile.tryPass()).isTrue();
+        assertThat(turnstile.tryPass()).isFalse();
+        assertThat(turnstile.getEventsSeen()).isEqualTo(3L);
+    }
+
+    @Test
+    public void turnstile_concurrentCount() throws InterruptedException
+    {
+        final StripedTurnstile turnstile = new StripedTurnstile(new FlowRate("1/ms"), 4);
+        final CountDownLatch done = new CountDownLatch(8);
+
+        for (int t = 0; t < 8; t++)
+        {
+            new Thread(() ->
+                       {
+                           for (int i = 0; i < 1000; i++) turnstile.tryPass();
+                           done.countDown();
+                       }).start();
+        }
+        done.await();
+
+        assertThat(turnstile.getEventsSeen() + turnstile.getEventsRejected()).isEqualTo(8000L);
+    }
+
+    @Test
+    public void turnstile_observedRate() throws InterruptedException
+    {
+        final StripedTurnstile turnstile = new StripedTurnstile(new FlowRate("1000/s"), 8);
+        final TurnstileObserver observer = turnstile.getObserver();
+        turnstile.start();
+
+        for (int i = 0; i < 500; i++) turnstile.pass();
+
+        // Interleaved stripe sequence numbers must not be mistaken for gaps in the window
+        assertThat(turnstile.getEventsSeen()).isEqualTo(500L);
+        assertThat(observer.getEventWindow().getFirst().getSequenceNumber()).isEqualTo(500L);
+        assertThat(observer.calculateEventRate(Duration.ofSeconds(5)).getVolume()).isEqualTo(500.0);
+        final Percentage tolerance = Percentage.withPercentage(20);
+        assertThat(observer.calculateEventRate().getVolumePerSecond()).isCloseTo(1000.0, tolerance);
+        assertThat(observer.calculateEventRate(40).getVolumePerSecond()).isCloseTo(1000.0, tolerance);
+
+        turnstile.pass(5L);
+
+        assertThat(turnstile.getEventsSeen()).isEqualTo(505L);
+        assertThat(observer.getEventWindow().getFirst().getSequenceNumber()).isEqualTo(505L);
+        assertThat(observer.calculateEventRate(Duration.ofSeconds(5)).getVolume()).isEqualTo(505.0);
+    }
+
+    @Test
+    public void stripedCount_uniqueSequences() throws InterruptedException
+    {
+        final EventCounter counter = EventCounter.striped(4);
+        final Set<Long> sequences = ConcurrentHashMap.newKeySet();
+        final CountDownLatch done = new CountDownLatch(8);
+
+        for (int t = 0; t < 8; t++)
+        {
+            new Thread(() ->
+                       {
+                           for (int i = 0; i < 1000; i++) sequences.add(counter.add(1L));
+                           sequences.add(counter.add(3L));
+                           done.countDown();
+                       }).start();
+        }
+        done.await();
+
+        // Each stripe hands out its own sequence numbers, but none are ever shared
+        assertThat(counter.get()).isEqualTo(8024L);
+        assertThat(sequences).hasSize(8008);
+
+        counter.reset();
+        assertThat(counter.get()).isZero();
+    }
+
+    @Test
+    public void setRate()
+    {
+        final StripedMeter meter = new StripedMeter(new FlowRate("4/s"), 4, new ManualTimeProvider());
+
+        for (int i = 1; i <= 4; i++) meter.claim(i);
+        meter.setRate(new FlowRate("2/s"));
+
+        assertThat(meter.getFlowRate()).hasValue(new FlowRate("2/s"));
+        assertThat(meter.claim(5)).isEqualTo(TimeUnit.SECONDS.toNanos(2));
+    }
+}
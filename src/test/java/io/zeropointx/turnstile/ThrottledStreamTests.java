@@ -0,0 +1,108 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class ThrottledStreamTests
+{
+    private final byte[] data = new byte[200_000];
+
+    public ThrottledStreamTests()
+    {
+        new Random(1L).nextBytes(this.data);
+    }
+
+    @Test
+    public void input() throws IOException
+    {
+        final Turnstile turnstile = new Turnstile(new GcraMeter("1M/s"));
+        turnstile.start();
+        final InputStream in = new ThrottledInputStream(new ByteArrayInputStream(this.data), turnstile);
+        final byte[] read = new byte[this.data.length];
+
+        // Reads are limited to a chunk of the rate
+        assertThat(in.read(read)).isEqualTo(10_000);
+        int total = 10_000;
+        int count;
+        while ((count = in.read(read, total, read.length - total)) > 0) total += count;
+
+        assertThat(read).isEqualTo(this.data);
+        assertThat(in.read()).isEqualTo(-1);
+        assertThat(turnstile.getEventsSeen()).isEqualTo(this.data.length);
+    }
+
+    @Test
+    public void input_singleBytes() throws IOException
+    {
+        final Turnstile turnstile = new Turnstile(new NoopMeter());
+        final InputStream in = new ThrottledInputStream(new ByteArrayInputStream(this.data, 0, 10), turnstile);
+
+        for (int i = 0; i < 10; i++) assertThat(in.read()).isEqualTo(this.data[i] & 0xFF);
+        assertThat(in.read()).isEqualTo(-1);
+        assertThat(turnstile.getEventsSeen()).isEqualTo(10L);
+    }
+
+    @Test
+    public void output() throws IOException
+    {
+        final Turnstile turnstile = new Turnstile(new GcraMeter("1M/s"));
+        turnstile.start();
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        final long start = System.nanoTime();
+        try (final OutputStream out = new ThrottledOutputStream(target, turnstile))
+        {
+            out.write(this.data);
+            out.write(42);
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        assertThat(target.size()).isEqualTo(this.data.length + 1);
+        assertThat(elapsed).isGreaterThanOrEqualTo(150_000_000L);
+        assertThat(turnstile.getEventsSeen()).isEqualTo(this.data.length + 1);
+    }
+
+    @Test
+    public void interrupted()
+    {
+        final Turnstile turnstile = new Turnstile(new GcraMeter("1k/s"));
+        turnstile.start();
+        final OutputStream out = new ThrottledOutputStream(new ByteArrayOutputStream(), turnstile);
+
+        Thread.currentThread().interrupt();
+        assertThatThrownBy(() -> out.write(this.data)).isInstanceOf(InterruptedIOException.class);
+        assertThat(Thread.interrupted()).isTrue();
+    }
+}
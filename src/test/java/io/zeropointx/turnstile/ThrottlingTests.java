@@ -0,0 +1,133 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class ThrottlingTests
+{
+    private static byte[] randomBytes(final int size)
+    {
+        final byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void chunkSize()
+    {
+        assertThat(Throttling.getChunkSize(new Turnstile(new GcraMeter("10M/s")))).isEqualTo(100_000);
+        assertThat(Throttling.getChunkSize(new Turnstile(new GcraMeter("1/s")))).isEqualTo(Throttling.MIN_CHUNK);
+        assertThat(Throttling.getChunkSize(new Turnstile(new GcraMeter("1000M/s")))).isEqualTo(Throttling.MAX_CHUNK);
+        assertThat(Throttling.getChunkSize(new Turnstile(new NoopMeter()))).isEqualTo(Throttling.DEFAULT_CHUNK);
+    }
+
+    @Test
+    public void chunkSize_followsRate()
+    {
+        final Turnstile turnstile = new Turnstile(new GcraMeter("1M/s"));
+        assertThat(Throttling.getChunkSize(turnstile)).isEqualTo(10_000);
+
+        turnstile.setRate(new FlowRate("2M/s"));
+        assertThat(Throttling.getChunkSize(turnstile)).isEqualTo(20_000);
+    }
+
+    @Test
+    public void readableChannel() throws IOException
+    {
+        final byte[] data = ThrottlingTests.randomBytes(100_000);
+        final Turnstile turnstile = new Turnstile(new GcraMeter("1M/s"));
+        turnstile.start();
+
+        final ThrottledReadableByteChannel channel =
+                new ThrottledReadableByteChannel(Channels.newChannel(new ByteArrayInputStream(data)), turnstile);
+        final ByteBuffer buffer = ByteBuffer.allocate(data.length);
+
+        assertThat(channel.read(buffer)).isEqualTo(10_000);
+        assertThat(buffer.limit()).isEqualTo(data.length);
+        while (buffer.hasRemaining()) channel.read(buffer);
+
+        assertThat(channel.read(ByteBuffer.allocate(10))).isEqualTo(-1);
+        assertThat(buffer.array()).isEqualTo(data);
+        assertThat(turnstile.getEventsSeen()).isEqualTo(data.length);
+    }
+
+    @Test
+    public void writableChannel() throws IOException
+    {
+        final byte[] data = ThrottlingTests.randomBytes(100_000);
+        final Turnstile turnstile = new Turnstile(new GcraMeter("1M/s"));
+        turnstile.start();
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ThrottledWritableByteChannel channel =
+                new ThrottledWritableByteChannel(Channels.newChannel(out), turnstile);
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+
+        assertThat(channel.write(buffer)).isEqualTo(10_000);
+        assertThat(buffer.limit()).isEqualTo(data.length);
+        while (buffer.hasRemaining()) channel.write(buffer);
+
+        assertThat(out.toByteArray()).isEqualTo(data);
+        assertThat(turnstile.getEventsSeen()).isEqualTo(data.length);
+    }
+
+    @Test
+    public void transferTo() throws IOException
+    {
+        final byte[] data = ThrottlingTests.randomBytes(300_000);
+        final File file = File.createTempFile("throttling", ".bin");
+        file.deleteOnExit();
+        Files.write(file.toPath(), data);
+
+        final Turnstile turnstile = new Turnstile(new GcraMeter("1M/s"));
+        turnstile.start();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final long start = System.nanoTime();
+        try (final FileChannel source = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            // Asking for more than the file holds stops at the end of the file
+            assertThat(Throttling.transferTo(source, 0L, data.length + 1000L, Channels.newChannel(out), turnstile))
+                    .isEqualTo(data.length);
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        assertThat(out.toByteArray()).isEqualTo(data);
+        assertThat(elapsed).isGreaterThanOrEqualTo(250_000_000L);
+        assertThat(turnstile.getEventsSeen()).isBetween((long)data.length, data.length + 1000L);
+    }
+}
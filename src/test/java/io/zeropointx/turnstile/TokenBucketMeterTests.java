@@ -0,0 +1,151 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import io.zeropointx.time.ManualTimeProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class TokenBucketMeterTests
+{
+    private ManualTimeProvider clock;
+    private TokenBucketMeter meter;
+
+    @Before
+    public void setup()
+    {
+        this.clock = new ManualTimeProvider();
+        this.meter = new TokenBucketMeter(new FlowRate("10/s"), 5, this.clock);
+        this.meter.start();
+    }
+
+    @Test
+    public void burst()
+    {
+        for (int i = 1; i <= 5; i++)
+        {
+            assertThat(this.meter.claim(i)).isEqualTo(0L);
+        }
+
+        assertThat(this.meter.getDelayFor(6)).isEqualTo(100L);
+        assertThat(this.meter.claim(6)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(this.meter.claim(7)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    public void refill()
+    {
+        for (int i = 1; i <= 5; i++) this.meter.claim(i);
+
+        this.clock.adjust(250, TimeUnit.MILLISECONDS);
+
+        assertThat(this.meter.claim(6)).isEqualTo(0L);
+        assertThat(this.meter.claim(7)).isEqualTo(0L);
+        assertThat(this.meter.claim(8)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void capacityLimit()
+    {
+        this.clock.adjust(1, TimeUnit.HOURS);
+
+        for (int i = 1; i <= 5; i++)
+        {
+            assertThat(this.meter.claim(i)).isEqualTo(0L);
+        }
+        assertThat(this.meter.claim(6)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void tryClaim_rejected()
+    {
+        for (int i = 1; i <= 5; i++) this.meter.claim(i);
+
+        assertThat(this.meter.tryClaim(6, 0L)).isEqualTo(Meter.REJECTED);
+        assertThat(this.meter.getDelayFor(6)).isEqualTo(100L);
+    }
+
+    @Test
+    public void turnstile()
+    {
+        final Turnstile turnstile = new Turnstile(new TokenBucketMeter("1/s", 3));
+
+        assertThat(turnstile.tryPass()).isTrue();
+        assertThat(turnstile.tryPass()).isTrue();
+        assertThat(turnstile.tryPass()).isTrue();
+        assertThat(turnstile.tryPass()).isFalse();
+        assertThat(turnstile.getEventsSeen()).isEqualTo(3L);
+    }
+
+    @Test
+    public void invalidCapacity()
+    {
+        assertThatThrownBy(() -> new TokenBucketMeter("1/s", 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void setRate()
+    {
+        for (int i = 1; i <= 5; i++) this.meter.claim(i);
+
+        // Half a token has refilled at the old rate
+        this.clock.adjust(50, TimeUnit.MILLISECONDS);
+        this.meter.setRate(new FlowRate("1/s"));
+
+        assertThat(this.meter.getFlowRate()).hasValue(new FlowRate("1/s"));
+        assertThat(this.meter.claim(6)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    public void weighted()
+    {
+        assertThat(this.meter.claim(3, 3)).isEqualTo(0L);
+        assertThat(this.meter.getDelayNanosFor(6, 3)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(this.meter.tryClaim(6, 3, 0L)).isEqualTo(Meter.REJECTED);
+        assertThat(this.meter.claim(5, 2)).isEqualTo(0L);
+
+        // An event heavier than the bucket puts it into debt for the difference
+        assertThat(this.meter.claim(13, 8)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(800));
+        assertThat(this.meter.claim(14)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(900));
+    }
+
+    @Test
+    public void refund()
+    {
+        for (int i = 1; i <= 5; i++) this.meter.claim(i);
+        this.meter.refund(5, 2);
+
+        assertThat(this.meter.claim(6)).isEqualTo(0L);
+        assertThat(this.meter.claim(7)).isEqualTo(0L);
+        assertThat(this.meter.claim(8)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        // Refunds never overfill the bucket
+        this.meter.refund(8, 10);
+        assertThat(this.meter.getDelayNanosFor(14, 6)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+}
@@ -0,0 +1,109 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A rough benchmark comparing the throughput of a {@link Turnstile} under contention when using a serialized
+ * {@link RateControlledMeter} versus the concurrent {@link GcraMeter} and {@link StripedMeter}. This is not run as
+ * part of the test suite. Run it directly with {@code main}, optionally supplying the rate, the events per thread
+ * and the largest thread count to try.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class TurnstileContentionBenchmark
+{
+    public static void main(final String[] args) throws InterruptedException
+    {
+        final String rate = (args.length > 0) ? args[0] : "20k/s";
+        final int eventsPerThread = (args.length > 1) ? Integer.parseInt(args[1]) : 2000;
+        final int maxThreads = (args.length > 2) ? Integer.parseInt(args[2]) : 32;
+
+        System.out.printf("Target rate: %s, %d events per thread%n", rate, eventsPerThread);
+        System.out.printf("%-22s %8s %12s %14s %14s%n",
+                          "meter", "threads", "events/s", "mean wait(us)", "max wait(us)");
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2)
+        {
+            TurnstileContentionBenchmark.run("RateControlledMeter", () -> new RateControlledMeter(rate),
+                                             threads, eventsPerThread);
+            TurnstileContentionBenchmark.run("GcraMeter", () -> new GcraMeter(rate),
+                                             threads, eventsPerThread);
+            TurnstileContentionBenchmark.run("StripedMeter", () -> new StripedMeter(new FlowRate(rate)),
+                                             threads, eventsPerThread);
+        }
+    }
+
+    private static void run(final String name, final Supplier<Meter> meterFactory, final int threads,
+                            final int eventsPerThread) throws InterruptedException
+    {
+        final Turnstile turnstile = new Turnstile(meterFactory.get());
+        final CountDownLatch ready = new CountDownLatch(threads);
+        final CountDownLatch go = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicLong totalWait = new AtomicLong();
+        final AtomicLong maxWait = new AtomicLong();
+
+        for (int t = 0; t < threads; t++)
+        {
+            new Thread(() ->
+                       {
+                           try
+                           {
+                               ready.countDown();
+                               go.await();
+                               for (int i = 0; i < eventsPerThread; i++)
+                               {
+                                   final long before = System.nanoTime();
+                                   turnstile.pass();
+                                   final long wait = System.nanoTime() - before;
+                                   totalWait.addAndGet(wait);
+                                   maxWait.accumulateAndGet(wait, Math::max);
+                               }
+                           }
+                           catch (InterruptedException e)
+                           {
+                               Thread.currentThread().interrupt();
+                           }
+                           finally
+                           {
+                               done.countDown();
+                           }
+                       }).start();
+        }
+
+        ready.await();
+        turnstile.start();
+        final long start = System.nanoTime();
+        go.countDown();
+        done.await();
+        final long elapsed = System.nanoTime() - start;
+
+        final long events = turnstile.getEventsSeen();
+        System.out.printf("%-22s %8d %12.0f %14d %14d%n", name, threads,
+                          events / (elapsed / 1_000_000_000d),
+                          TimeUnit.NANOSECONDS.toMicros(totalWait.get() / events),
+                          TimeUnit.NANOSECONDS.toMicros(maxWait.get()));
+    }
+}
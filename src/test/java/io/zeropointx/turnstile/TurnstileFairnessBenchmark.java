@@ -0,0 +1,103 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A rough benchmark comparing the wait times of threads contending for a fair and an unfair {@link Turnstile}
+ * paced by a serialized {@link RateControlledMeter}. Every wait is recorded, and the tail of the distribution is
+ * reported for each mode. This is not run as part of the test suite. Run it directly with {@code main}, optionally
+ * supplying the rate, the events per thread and the number of threads.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class TurnstileFairnessBenchmark
+{
+    public static void main(final String[] args) throws InterruptedException
+    {
+        final String rate = (args.length > 0) ? args[0] : "5k/s";
+        final int eventsPerThread = (args.length > 1) ? Integer.parseInt(args[1]) : 500;
+        final int threads = (args.length > 2) ? Integer.parseInt(args[2]) : 16;
+
+        System.out.printf("Target rate: %s, %d threads, %d events per thread%n", rate, threads, eventsPerThread);
+        System.out.printf("%-8s %12s %14s %14s %14s %14s%n",
+                          "mode", "events/s", "p50 wait(us)", "p99 wait(us)", "p999 wait(us)", "max wait(us)");
+
+        for (final boolean fair : new boolean[] { false, true, false, true })
+        {
+            TurnstileFairnessBenchmark.run(fair, rate, threads, eventsPerThread);
+        }
+    }
+
+    private static void run(final boolean fair, final String rate, final int threads, final int eventsPerThread)
+            throws InterruptedException
+    {
+        final Turnstile turnstile = new Turnstile(new RateControlledMeter(rate), fair);
+        final long[][] waits = new long[threads][eventsPerThread];
+        final CountDownLatch ready = new CountDownLatch(threads);
+        final CountDownLatch go = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++)
+        {
+            final long[] threadWaits = waits[t];
+            new Thread(() ->
+                       {
+                           try
+                           {
+                               ready.countDown();
+                               go.await();
+                               for (int i = 0; i < eventsPerThread; i++)
+                               {
+                                   final long before = System.nanoTime();
+                                   turnstile.pass();
+                                   threadWaits[i] = System.nanoTime() - before;
+                               }
+                           }
+                           catch (InterruptedException e)
+                           {
+                               Thread.currentThread().interrupt();
+                           }
+                           finally
+                           {
+                               done.countDown();
+                           }
+                       }).start();
+        }
+
+        ready.await();
+        turnstile.start();
+        final long start = System.nanoTime();
+        go.countDown();
+        done.await();
+        final long elapsed = System.nanoTime() - start;
+
+        final long[] all = Arrays.stream(waits).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%-8s %12.0f %14d %14d %14d %14d%n", fair ? "fair" : "unfair",
+                          all.length / (elapsed / 1_000_000_000d),
+                          TimeUnit.NANOSECONDS.toMicros(all[all.length / 2]),
+                          TimeUnit.NANOSECONDS.toMicros(all[(int)(all.length * 0.99)]),
+                          TimeUnit.NANOSECONDS.toMicros(all[(int)(all.length * 0.999)]),
+                          TimeUnit.NANOSECONDS.toMicros(all[all.length - 1]));
+    }
+}
@@ -0,0 +1,135 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import io.zeropointx.time.ManualTimeProvider;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class TurnstileManagementTests
+{
+    private static final String NAME = "test \"limiter\"";
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    @After
+    public void cleanup()
+    {
+        TurnstileManagement.unregister(TurnstileManagementTests.NAME);
+    }
+
+    @Test
+    public void attributes() throws Exception
+    {
+        Turnstile turnstile = new Turnstile(new GcraMeter(new FlowRate("1000/s")));
+        ObjectName name = TurnstileManagement.register(turnstile, TurnstileManagementTests.NAME);
+
+        assertThat(this.server.getAttribute(name, "Paused")).isEqualTo(true);
+        assertThat(this.server.getAttribute(name, "FlowRate")).isEqualTo("1000/s");
+
+        turnstile.start();
+        turnstile.pass();
+        turnstile.pass();
+
+        assertThat(this.server.getAttribute(name, "EventsSeen")).isEqualTo(2L);
+        assertThat(this.server.getAttribute(name, "Blocked")).isEqualTo(false);
+        assertThat(this.server.getAttribute(name, "Paused")).isEqualTo(false);
+        assertThat((double[])this.server.getAttribute(name, "MovingAverageRates")).hasSize(3);
+        assertThat((String[])this.server.getAttribute(name, "MovingAveragePeriods"))
+                .containsExactly("PT1M", "PT5M", "PT15M");
+        assertThat((Double)this.server.getAttribute(name, "MeterDelayP999")).isBetween(0.0, 5.0);
+    }
+
+    @Test
+    public void percentileSnapshotsAreReused()
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final Turnstile turnstile = new Turnstile(new NoopMeter());
+        final TurnstileManagement management = new TurnstileManagement(turnstile, clock);
+        final DelayHistogram histogram = turnstile.getObserver().getHoldTimeHistogram();
+
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        final double p50 = management.getHoldTimeP50();
+        assertThat(p50).isBetween(0.9, 1.1);
+
+        // Every percentile read within the snapshot's lifetime comes from the same copy
+        for (int i = 0; i < 100; i++) histogram.record(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(management.getHoldTimeP50()).isEqualTo(p50);
+        assertThat(management.getHoldTimeP999()).isBetween(0.9, 1.1);
+
+        clock.adjust(1, TimeUnit.SECONDS);
+        assertThat(management.getHoldTimeP50()).isBetween(45.0, 55.0);
+    }
+
+    @Test
+    public void operations() throws Exception
+    {
+        Turnstile turnstile = new Turnstile(new NoopMeter());
+        ObjectName name = TurnstileManagement.register(turnstile, TurnstileManagementTests.NAME);
+
+        this.server.invoke(name, "block", null, null);
+        assertThat(turnstile.isBlocked()).isTrue();
+        this.server.invoke(name, "unblock", null, null);
+        assertThat(turnstile.isBlocked()).isFalse();
+
+        this.server.invoke(name, "start", null, null);
+        assertThat(turnstile.isPaused()).isFalse();
+        this.server.invoke(name, "pause", null, null);
+        assertThat(turnstile.isPaused()).isTrue();
+    }
+
+    @Test
+    public void setFlowRate() throws Exception
+    {
+        Turnstile turnstile = new Turnstile(new GcraMeter(new FlowRate("10/s")));
+        ObjectName name = TurnstileManagement.register(turnstile, TurnstileManagementTests.NAME);
+
+        this.server.setAttribute(name, new Attribute("FlowRate", "25/m"));
+
+        assertThat(this.server.getAttribute(name, "FlowRate")).isEqualTo("25/m");
+    }
+
+    @Test
+    public void noSingleRate() throws Exception
+    {
+        Turnstile turnstile = new Turnstile(new CompositeMeter("10/s,100/m"));
+        ObjectName name = TurnstileManagement.register(turnstile, TurnstileManagementTests.NAME);
+
+        assertThat(this.server.getAttribute(name, "FlowRate")).isNull();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void duplicateName()
+    {
+        TurnstileManagement.register(new Turnstile(new NoopMeter()), TurnstileManagementTests.NAME);
+        TurnstileManagement.register(new Turnstile(new NoopMeter()), TurnstileManagementTests.NAME);
+    }
+}
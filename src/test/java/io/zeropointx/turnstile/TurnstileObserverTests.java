@@ -20,6 +20,7 @@ package io.zeropointx.turnstile;
 
 import io.zeropointx.time.DefaultTimeProvider;
 import io.zeropointx.time.ManualTimeProvider;
+import io.zeropointx.time.SystemTimeProvider;
 import io.zeropointx.time.TimeProvider;
 import org.assertj.core.data.Offset;
 import org.junit.After;
@@ -63,7 +64,7 @@ public class TurnstileObserverTests
 
     protected void feedEvents(final int count, final String rate)
     {
-        final Turnstile feeder = new Turnstile(new RateControlledMeter(rate));
+        final Turnstile feeder = new Turnstile(new RateControlledMeter(new FlowRate(rate), new SystemTimeProvider()));
         feeder.start();
 
         try
@@ -185,4 +186,201 @@ public class TurnstileObserverTests
         assertThat(observer.getEventWindow().size()).isEqualTo(10);
     }
 
+    @Test
+    public void windowWrapsNewestFirst()
+    {
+        TurnstileObserver observer = this.turnstile.getObserver();
+
+        for (long seq = 1; seq <= 100; seq++)
+        {
+            observer.recordEvent(seq, seq * 10);
+        }
+
+        assertThat(observer.getEventWindow()).hasSize(TurnstileObserver.IDEAL_SIZE);
+        assertThat(observer.getEventWindow().getFirst().getSequenceNumber()).isEqualTo(100);
+        assertThat(observer.getEventWindow().getLast().getSequenceNumber())
+                .isEqualTo(100 - TurnstileObserver.IDEAL_SIZE + 1);
+    }
+
+    @Test
+    public void observingLargeGap()
+    {
+        TurnstileObserver observer = this.turnstile.getObserver();
+
+        observer.observe(1);
+        observer.observe(1000);
+
+        assertThat(observer.getEventWindow()).hasSize(TurnstileObserver.IDEAL_SIZE);
+        assertThat(observer.getEventWindow().getFirst().getSequenceNumber()).isEqualTo(1000);
+        assertThat(observer.getEventWindow().getLast().getSequenceNumber())
+                .isEqualTo(1000 - TurnstileObserver.IDEAL_SIZE + 1);
+    }
+
+    @Test
+    public void deferredMatchesImmediate()
+    {
+        TurnstileObserver immediate = new TurnstileObserver(this.timeProvider);
+        TurnstileObserver deferred = new TurnstileObserver(this.timeProvider, true);
+
+        for (long seq = 1; seq <= 3000; seq++)
+        {
+            immediate.observe(seq);
+            deferred.observe(seq);
+            this.timeProvider.adjust(1, TimeUnit.MILLISECONDS);
+        }
+
+        assertThat(deferred.isDeferred()).isTrue();
+        assertThat(deferred.calculateEventRate().getVolumePerSecond())
+                .isEqualTo(immediate.calculateEventRate().getVolumePerSecond());
+        assertThat(deferred.calculateEventRate(Duration.ofMillis(30)).getVolumePerSecond())
+                .isEqualTo(immediate.calculateEventRate(Duration.ofMillis(30)).getVolumePerSecond());
+        assertThat(deferred.getEventWindow().getFirst().getSequenceNumber()).isEqualTo(3000);
+    }
+
+    @Test
+    public void deferredConcurrentPublishers() throws InterruptedException
+    {
+        final TurnstileObserver observer = new TurnstileObserver(this.timeProvider, true);
+        final Turnstile counting = new Turnstile(this.meter, observer);
+        final int threadCount = 4;
+        final int perThread = 5000;
+
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++)
+        {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) assertThat(counting.tryPass()).isTrue();
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertThat(counting.getEventsSeen()).isEqualTo(threadCount * perThread);
+        assertThat(observer.getEventWindow()).hasSize(TurnstileObserver.IDEAL_SIZE);
+        assertThat(observer.getEventWindow().stream().mapToLong(TurnstileObserver.EventRecord::getSequenceNumber).max())
+                .hasValue(threadCount * perThread);
+    }
+
+    @Test
+    public void longWindowCountsEveryEvent()
+    {
+        TurnstileObserver observer = this.turnstile.getObserver();
+
+        // 100 events every second for three minutes
+        for (long seq = 1; seq <= 18000; seq++)
+        {
+            observer.observe(seq);
+            this.timeProvider.adjust(10, TimeUnit.MILLISECONDS);
+        }
+
+        assertThat(observer.getHorizon()).isEqualTo(TurnstileObserver.DEFAULT_HORIZON);
+        assertThat(observer.calculateEventRate(Duration.ofMinutes(2)).getVolumePerSecond())
+                .isEqualTo(100, Offset.offset(1.0));
+        assertThat(observer.calculateEventRate(Duration.ofMinutes(5)).getVolumePerSecond())
+                .isEqualTo(60, Offset.offset(1.0));
+        assertThat(observer.calculateEventRate(Duration.ofMillis(200)).getVolumePerSecond())
+                .isEqualTo(95, Offset.offset(0.1));
+    }
+
+    private void passConcurrently(final Turnstile counting, final int threadCount, final int perThread)
+            throws InterruptedException
+    {
+        final Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++)
+        {
+            threads[t] = new Thread(() ->
+                                    {
+                                        try
+                                        {
+                                            for (int i = 0; i < perThread; i++) counting.pass();
+                                        }
+                                        catch (InterruptedException e)
+                                        {
+                                            Thread.currentThread().interrupt();
+                                        }
+                                    });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+    }
+
+    @Test
+    public void longWindowCountsConcurrentEventsOnce() throws InterruptedException
+    {
+        final TimeProvider clock = new SystemTimeProvider();
+        final Turnstile[] turnstiles = {
+                new Turnstile(new GcraMeter(new FlowRate("20/ms"), clock), new TurnstileObserver(clock)),
+                new Turnstile(new RateControlledMeter(new FlowRate("1000/ms"), clock), new TurnstileObserver(clock)),
+                new Turnstile(new GcraMeter(new FlowRate("20/ms"), clock), new TurnstileObserver(clock, true)),
+        };
+
+        for (Turnstile counting : turnstiles)
+        {
+            counting.start();
+            this.passConcurrently(counting, 16, 2000);
+
+            // Events observed out of order must not be counted again on top of the gaps they left
+            assertThat(counting.getEventsSeen()).isEqualTo(32000L);
+            assertThat(counting.getObserver().calculateEventRate(Duration.ofSeconds(60)).getVolume())
+                    .isEqualTo(32000.0);
+        }
+    }
+
+    @Test
+    public void observingOutOfOrderEvents()
+    {
+        TurnstileObserver observer = new TurnstileObserver(this.timeProvider);
+
+        for (long seq : new long[] { 1, 3, 2, 5, 4, 6 }) observer.observe(seq);
+
+        // Late events were already filled in by the gaps they left, so none are added twice
+        assertThat(observer.getEventWindow()).hasSize(6);
+        assertThat(observer.getEventWindow().getFirst().getSequenceNumber()).isEqualTo(6);
+        assertThat(observer.calculateEventRate(Duration.ofMinutes(1)).getVolume()).isEqualTo(6.0);
+    }
+
+    @Test
+    public void observingAfterReset() throws InterruptedException
+    {
+        this.turnstile.pass();
+        this.turnstile.pass();
+        this.turnstile.reset();
+        this.turnstile.pass();
+
+        assertThat(this.turnstile.getObserver().getEventWindow()).hasSize(3);
+        assertThat(this.turnstile.getObserver().getEventWindow().getFirst().getSequenceNumber()).isEqualTo(1);
+    }
+
+    @Test
+    public void concurrentObservationKeepsWindowInOrder() throws InterruptedException
+    {
+        final TimeProvider clock = new SystemTimeProvider();
+        final Turnstile counting = new Turnstile(new GcraMeter(new FlowRate("20/ms"), clock),
+                                                 new TurnstileObserver(clock));
+        counting.start();
+
+        this.passConcurrently(counting, 8, 1000);
+
+        final long[] window = counting.getObserver().getEventWindow().stream()
+                                      .mapToLong(TurnstileObserver.EventRecord::getSequenceNumber).toArray();
+        assertThat(window).hasSize(TurnstileObserver.IDEAL_SIZE);
+        assertThat(window[0]).isEqualTo(8000L);
+        for (int i = 1; i < window.length; i++) assertThat(window[i]).isLessThanOrEqualTo(window[i - 1]);
+    }
+
+    @Test
+    public void observingWeightedEvents()
+    {
+        TurnstileObserver observer = new TurnstileObserver(this.timeProvider);
+
+        observer.observe(1);
+        this.timeProvider.adjust(100, TimeUnit.MILLISECONDS);
+        observer.observe(101, 100);
+
+        assertThat(observer.getEventWindow()).hasSize(TurnstileObserver.IDEAL_SIZE);
+        assertThat(observer.getEventWindow().getFirst().getSequenceNumber()).isEqualTo(101);
+        // The long window is counted from the buckets, so leave room for both events to land in different ones
+        assertThat(observer.calculateEventRate(Duration.ofSeconds(10)).getVolumePerSecond())
+                .isCloseTo(10.1, Offset.offset(0.0001));
+    }
 }
@@ -18,14 +18,31 @@
 
 package io.zeropointx.turnstile;
 
+import com.google.common.util.concurrent.Uninterruptibles;
+import io.zeropointx.time.ManualTimeProvider;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.fail;
 
 /**
  * @author jeff@darkware.org
@@ -80,6 +97,430 @@ public class TurnstileTests
         Mockito.verify(this.testMeter).delay(1);
     }
 
+    @Test
+    public void tryPass()
+    {
+        final Turnstile limiter = new Turnstile(new NoopMeter());
+
+        assertThat(limiter.tryPass()).isTrue();
+        assertThat(limiter.getEventsSeen()).isEqualTo(1L);
+    }
+
+    @Test
+    public void tryPass_rejected()
+    {
+        final Turnstile limiter = new Turnstile(new RateControlledMeter("3/300ms"));
+
+        assertThat(limiter.tryPass()).isFalse();
+        assertThat(limiter.getEventsSeen()).isZero();
+    }
+
+    @Test
+    public void tryPass_blocked()
+    {
+        final Turnstile limiter = new Turnstile(new NoopMeter());
+
+        limiter.block();
+
+        assertThat(limiter.tryPass()).isFalse();
+        assertThat(limiter.getEventsSeen()).isZero();
+    }
+
+    @Test
+    public void tryPass_whileOtherPassSleeps() throws InterruptedException
+    {
+        final Turnstile limiter = new Turnstile(new RateControlledMeter("2/s"));
+
+        // The first event is due half a second after the meter starts, and holds the admission lock until then
+        final Thread sleeper = new Thread(() ->
+                                          {
+                                              try
+                                              {
+                                                  limiter.pass();
+                                              }
+                                              catch (InterruptedException e)
+                                              {
+                                                  Thread.currentThread().interrupt();
+                                              }
+                                          });
+        sleeper.start();
+        while (limiter.getEventsSeen() == 0) Thread.yield();
+
+        final long start = System.nanoTime();
+        assertThat(limiter.tryPass()).isFalse();
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(limiter.getEventsRejected()).isEqualTo(1L);
+
+        sleeper.join();
+    }
+
+    @Test(timeout = 5000)
+    public void tryPass_whileOtherPassIsNotDelayed() throws InterruptedException
+    {
+        final CountDownLatch claiming = new CountDownLatch(1);
+        final CountDownLatch claimed = new CountDownLatch(1);
+        final Turnstile limiter = new Turnstile(new TestingMeter()
+        {
+            @Override
+            protected long claim(final long eventCount)
+            {
+                // Keep the admission lock for a moment without imposing any delay
+                claiming.countDown();
+                Uninterruptibles.awaitUninterruptibly(claimed);
+                return 0L;
+            }
+        });
+
+        final Thread passer = new Thread(() ->
+                                         {
+                                             try
+                                             {
+                                                 limiter.pass();
+                                             }
+                                             catch (InterruptedException e)
+                                             {
+                                                 Thread.currentThread().interrupt();
+                                             }
+                                         });
+        passer.start();
+        claiming.await();
+
+        final CompletableFuture<Boolean> attempt = CompletableFuture.supplyAsync(limiter::tryPass);
+        Thread.sleep(50);
+        claimed.countDown();
+
+        assertThat(attempt.join()).isTrue();
+        passer.join();
+        assertThat(limiter.getEventsSeen()).isEqualTo(2L);
+        assertThat(limiter.getEventsRejected()).isZero();
+    }
+
+    @Test(timeout = 5000)
+    public void tryPass_blockedWhileAdmitting() throws InterruptedException
+    {
+        final AtomicReference<Turnstile> turnstile = new AtomicReference<>();
+        final Turnstile limiter = new Turnstile(new TestingMeter()
+        {
+            @Override
+            protected long tryClaim(final long eventCount, final long permits, final long maxDelay)
+            {
+                // Place a block from another thread while the event is being admitted
+                final Thread blocker = new Thread(turnstile.get()::block);
+                blocker.start();
+                Uninterruptibles.joinUninterruptibly(blocker, 100, TimeUnit.MILLISECONDS);
+                return 0L;
+            }
+        });
+        turnstile.set(limiter);
+
+        // The block must not be able to hold a thread which will never wait
+        assertThat(limiter.tryPass()).isTrue();
+        assertThat(limiter.getEventsSeen()).isEqualTo(1L);
+
+        while (!limiter.isBlocked()) Thread.yield();
+        assertThat(limiter.tryPass()).isFalse();
+        limiter.unblock();
+    }
+
+    @Test
+    public void tryPass_timeout() throws InterruptedException
+    {
+        final Turnstile limiter = new Turnstile(new RateControlledMeter("3/300ms"));
+
+        assertThat(limiter.tryPass(Duration.ofMillis(50))).isFalse();
+        assertThat(limiter.getEventsSeen()).isZero();
+
+        assertThat(limiter.tryPass(Duration.ofMillis(150))).isTrue();
+        assertThat(limiter.getEventsSeen()).isEqualTo(1L);
+    }
+
+    @Test
+    public void pass_budget() throws InterruptedException, DeadlineExceededException
+    {
+        final Turnstile limiter = new Turnstile(new RateControlledMeter("3/300ms"));
+
+        assertThatThrownBy(() -> limiter.pass(Duration.ofMillis(50))).isInstanceOf(DeadlineExceededException.class);
+        assertThat(limiter.getEventsSeen()).isZero();
+        assertThat(limiter.getEventsRejected()).isEqualTo(1L);
+
+        limiter.pass(Duration.ofMillis(150));
+        assertThat(limiter.getEventsSeen()).isEqualTo(1L);
+    }
+
+    @Test
+    public void pass_budgetBlocked()
+    {
+        final Turnstile limiter = new Turnstile(new NoopMeter());
+        limiter.block();
+
+        assertThatThrownBy(() -> limiter.pass(Duration.ofSeconds(1))).isInstanceOf(DeadlineExceededException.class);
+        assertThat(limiter.getEventsSeen()).isZero();
+    }
+
+    @Test
+    public void pass_deadline() throws InterruptedException, DeadlineExceededException
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final Turnstile limiter = new Turnstile(new RateControlledMeter(new FlowRate("1/s"), clock));
+        final Instant now = Instant.ofEpochMilli(clock.getTimestamp());
+
+        // The first event is due a second after the meter starts, so it can't make a deadline 200ms away
+        assertThatThrownBy(() -> limiter.pass(now.plusMillis(200))).isInstanceOf(DeadlineExceededException.class)
+                                                                    .hasMessageContaining("PT0.2S");
+        assertThat(limiter.getEventsSeen()).isZero();
+
+        // The rejected event didn't use up a slot, so the next event is still due in a second
+        limiter.start();
+        clock.adjust(1, TimeUnit.SECONDS);
+        limiter.pass(now.plusSeconds(2));
+        assertThat(limiter.getEventsSeen()).isEqualTo(1L);
+    }
+
+    @Test
+    public void pass_budgetWhileOtherPassSleeps() throws InterruptedException
+    {
+        final Turnstile limiter = new Turnstile(new RateControlledMeter("2/s"));
+
+        // The first event is due half a second after the meter starts, and holds the admission lock until then
+        final Thread sleeper = new Thread(() ->
+                                          {
+                                              try
+                                              {
+                                                  limiter.pass();
+                                              }
+                                              catch (InterruptedException e)
+                                              {
+                                                  Thread.currentThread().interrupt();
+                                              }
+                                          });
+        sleeper.start();
+        while (limiter.getEventsSeen() == 0) Thread.yield();
+
+        final long start = System.nanoTime();
+        try
+        {
+            limiter.pass(Duration.ofMillis(50));
+            fail("The event should have been rejected.");
+        }
+        catch (DeadlineExceededException e)
+        {
+            assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(250));
+        }
+        assertThat(limiter.getEventsRejected()).isEqualTo(1L);
+
+        sleeper.join();
+    }
+
+    @Test
+    public void pass_unboundedBudget() throws InterruptedException, DeadlineExceededException
+    {
+        final Turnstile limiter = new Turnstile(new NoopMeter());
+
+        limiter.pass(Duration.ofSeconds(Long.MAX_VALUE));
+        limiter.pass(Instant.MAX);
+        assertThat(limiter.tryPass(Duration.ofSeconds(Long.MAX_VALUE))).isTrue();
+        assertThat(limiter.tryPass(Duration.ofSeconds(Long.MIN_VALUE))).isFalse();
+        assertThat(limiter.getEventsSeen()).isEqualTo(3L);
+
+        try
+        {
+            limiter.pass(Instant.MIN);
+            fail("The event should have been rejected.");
+        }
+        catch (DeadlineExceededException e)
+        {
+            assertThat(e.getBudget().isNegative()).isTrue();
+        }
+    }
+
+    @Test
+    public void pass_deadlinePassed() throws InterruptedException
+    {
+        final Turnstile limiter = new Turnstile(new NoopMeter());
+
+        try
+        {
+            limiter.pass(Instant.now().minusSeconds(1));
+            fail("The event should have been rejected.");
+        }
+        catch (DeadlineExceededException e)
+        {
+            assertThat(e.getBudget().isNegative()).isTrue();
+        }
+        assertThat(limiter.getEventsSeen()).isZero();
+        assertThat(limiter.getEventsRejected()).isEqualTo(1L);
+    }
+
+    @Test
+    public void pass_weighted() throws InterruptedException
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final Turnstile limiter = new Turnstile(new TokenBucketMeter(new FlowRate("1k/s"), 1000, clock));
+        limiter.start();
+
+        limiter.pass(600);
+        assertThat(limiter.getEventsSeen()).isEqualTo(600L);
+
+        assertThat(limiter.tryPass(500)).isFalse();
+        assertThat(limiter.getEventsSeen()).isEqualTo(600L);
+
+        assertThat(limiter.tryPass(400)).isTrue();
+        assertThat(limiter.getEventsSeen()).isEqualTo(1000L);
+        assertThat(limiter.tryPass()).isFalse();
+    }
+
+    @Test
+    public void pass_weightedDelay() throws InterruptedException
+    {
+        final Turnstile limiter = new Turnstile(this.testMeter);
+
+        limiter.pass(5);
+        limiter.pass(1);
+
+        Mockito.verify(this.testMeter).delay(5, 5);
+        Mockito.verify(this.testMeter).delay(6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pass_noPermits() throws InterruptedException
+    {
+        new Turnstile(new NoopMeter()).pass(0);
+    }
+
+    @Test
+    public void fair_arrivalOrder() throws InterruptedException
+    {
+        final Turnstile turnstile = new Turnstile(new RateControlledMeter("50/s"), true);
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        final List<Thread> threads = new ArrayList<>();
+        assertThat(turnstile.isFair()).isTrue();
+        turnstile.start();
+
+        for (int i = 0; i < 5; i++)
+        {
+            final int id = i;
+            final Thread thread = new Thread(() ->
+                                             {
+                                                 try
+                                                 {
+                                                     turnstile.pass();
+                                                     order.add(id);
+                                                 }
+                                                 catch (InterruptedException e)
+                                                 {
+                                                     Thread.currentThread().interrupt();
+                                                 }
+                                             });
+            thread.start();
+            threads.add(thread);
+
+            // Let each thread queue up before the next one arrives
+            while (thread.getState() == Thread.State.NEW || thread.getState() == Thread.State.RUNNABLE) Thread.yield();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertThat(order).containsExactly(0, 1, 2, 3, 4);
+    }
+
+    @Test
+    public void fair_interruptedWhileQueued() throws InterruptedException
+    {
+        final Turnstile turnstile = new Turnstile(new RateControlledMeter("1/s"), true);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // The first event is due a second after the meter starts, and holds the turnstile until then
+        final Thread holder = new Thread(() ->
+                                         {
+                                             try
+                                             {
+                                                 turnstile.pass();
+                                             }
+                                             catch (InterruptedException e)
+                                             {
+                                                 Thread.currentThread().interrupt();
+                                             }
+                                         });
+        holder.start();
+        while (turnstile.getEventsSeen() == 0) Thread.yield();
+
+        final Thread queued = new Thread(() ->
+                                         {
+                                             try
+                                             {
+                                                 turnstile.pass();
+                                             }
+                                             catch (InterruptedException e)
+                                             {
+                                                 failure.set(e);
+                                             }
+                                         });
+        queued.start();
+        while (turnstile.getWaiterCount() < 2) Thread.yield();
+
+        queued.interrupt();
+        queued.join(500);
+        assertThat(queued.isAlive()).isFalse();
+        assertThat(failure.get()).isInstanceOf(InterruptedException.class);
+        assertThat(turnstile.getEventsSeen()).isEqualTo(1L);
+
+        holder.interrupt();
+        holder.join();
+    }
+
+    @Test
+    public void passAsync() throws InterruptedException, ExecutionException, TimeoutException
+    {
+        final Turnstile limiter = new Turnstile(new RateControlledMeter("10/s"));
+
+        final CompletableFuture<Void> passage = limiter.passAsync();
+
+        assertThat(limiter.getEventsSeen()).isEqualTo(1L);
+        assertThat(passage.isDone()).isFalse();
+
+        passage.get(500, TimeUnit.MILLISECONDS);
+        assertThat(passage.isDone()).isTrue();
+    }
+
+    @Test
+    public void passAsync_executor() throws InterruptedException, ExecutionException, TimeoutException
+    {
+        final Turnstile limiter = new Turnstile(new NoopMeter());
+        final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "passage-executor"));
+        final AtomicReference<String> completingThread = new AtomicReference<>();
+
+        try
+        {
+            // Hold the passage until the dependent action is attached
+            limiter.block();
+            final CompletableFuture<Void> passage =
+                    limiter.passAsync(executor).thenRun(() -> completingThread.set(Thread.currentThread().getName()));
+            limiter.unblock();
+
+            passage.get(500, TimeUnit.MILLISECONDS);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        assertThat(completingThread.get()).isEqualTo("passage-executor");
+    }
+
+    @Test
+    public void passAsync_blocked() throws InterruptedException, ExecutionException, TimeoutException
+    {
+        final Turnstile limiter = new Turnstile(new NoopMeter());
+
+        limiter.block();
+        final CompletableFuture<Void> passage = limiter.passAsync();
+        Thread.sleep(50);
+
+        assertThat(passage.isDone()).isFalse();
+
+        limiter.unblock();
+        passage.get(500, TimeUnit.MILLISECONDS);
+    }
+
     @Test
     public void block()
     {
@@ -122,4 +563,28 @@ public class TurnstileTests
 
         assertThat(limiter.isBlocked()).isFalse();
     }
+
+    @Test
+    public void setRate() throws InterruptedException
+    {
+        final ManualTimeProvider clock = new ManualTimeProvider();
+        final Turnstile turnstile = new Turnstile(new GcraMeter(new FlowRate("1/h"), clock));
+        turnstile.start();
+
+        assertThat(turnstile.tryPass()).isTrue();
+        assertThat(turnstile.tryPass()).isFalse();
+
+        turnstile.setRate(new FlowRate("1k/s"));
+        clock.adjust(1, TimeUnit.MILLISECONDS);
+
+        assertThat(turnstile.getFlowRate()).hasValue(new FlowRate("1k/s"));
+        assertThat(turnstile.tryPass()).isTrue();
+        assertThat(turnstile.getEventsSeen()).isEqualTo(2);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void setRate_unsupported()
+    {
+        new Turnstile(new NoopMeter()).setRate(new FlowRate("1/s"));
+    }
 }
@@ -0,0 +1,82 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A rough benchmark comparing the pacing accuracy and CPU cost of each {@link WaitStrategy}. A single thread passes
+ * a {@link Turnstile} paced by a {@link RateControlledMeter}, and the lateness of each event against its scheduled
+ * time is recorded along with the CPU time the thread consumed. This is not run as part of the test suite. Run it
+ * directly with {@code main}, optionally supplying the rate and the number of events.
+ *
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class WaitStrategyBenchmark
+{
+    public static void main(final String[] args) throws InterruptedException
+    {
+        final String rate = (args.length > 0) ? args[0] : "5k/s";
+        final int events = (args.length > 1) ? Integer.parseInt(args[1]) : 5000;
+
+        System.out.printf("Target rate: %s, %d events%n", rate, events);
+        System.out.printf("%-12s %12s %14s %14s %14s %10s%n",
+                          "strategy", "events/s", "p50 late(us)", "p99 late(us)", "max late(us)", "cpu %");
+
+        for (final WaitStrategy strategy : WaitStrategy.values())
+        {
+            WaitStrategyBenchmark.run(strategy, new FlowRate(rate), events);
+        }
+    }
+
+    private static void run(final WaitStrategy strategy, final FlowRate rate, final int events)
+            throws InterruptedException
+    {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final RateControlledMeter meter = new RateControlledMeter(rate);
+        meter.setWaitStrategy(strategy);
+        final Turnstile turnstile = new Turnstile(meter);
+        final double nanosPerEvent = rate.getDuration().toNanos() / rate.getVolume();
+        final long[] lateness = new long[events];
+
+        turnstile.start();
+        final long start = System.nanoTime();
+        final long startCpu = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < events; i++)
+        {
+            turnstile.pass();
+            final long scheduled = start + Math.round((i + 1) * nanosPerEvent);
+            lateness[i] = Math.max(0L, System.nanoTime() - scheduled);
+        }
+        final long elapsed = System.nanoTime() - start;
+        final long cpu = threads.getCurrentThreadCpuTime() - startCpu;
+
+        Arrays.sort(lateness);
+        System.out.printf("%-12s %12.0f %14d %14d %14d %10.1f%n", strategy.name(),
+                          events / (elapsed / 1_000_000_000d),
+                          TimeUnit.NANOSECONDS.toMicros(lateness[events / 2]),
+                          TimeUnit.NANOSECONDS.toMicros(lateness[(int)(events * 0.99)]),
+                          TimeUnit.NANOSECONDS.toMicros(lateness[events - 1]),
+                          100d * cpu / elapsed);
+    }
+}
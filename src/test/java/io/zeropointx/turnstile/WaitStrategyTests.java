@@ -0,0 +1,115 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class WaitStrategyTests
+{
+    @Test
+    public void waitsAtLeastTheDelay() throws InterruptedException
+    {
+        final long delay = TimeUnit.MILLISECONDS.toNanos(2);
+
+        for (final WaitStrategy strategy : WaitStrategy.values())
+        {
+            final long before = System.nanoTime();
+            strategy.await(delay);
+            assertThat(System.nanoTime() - before).as(strategy.name()).isGreaterThanOrEqualTo(delay);
+        }
+    }
+
+    @Test
+    public void subMillisecond() throws InterruptedException
+    {
+        final long delay = TimeUnit.MICROSECONDS.toNanos(200);
+
+        for (final WaitStrategy strategy : WaitStrategy.values())
+        {
+            final long before = System.nanoTime();
+            strategy.await(delay);
+            assertThat(System.nanoTime() - before).as(strategy.name()).isGreaterThanOrEqualTo(delay);
+        }
+    }
+
+    @Test
+    public void noDelay() throws InterruptedException
+    {
+        for (final WaitStrategy strategy : WaitStrategy.values())
+        {
+            final long before = System.nanoTime();
+            strategy.await(0L);
+            strategy.await(-TimeUnit.SECONDS.toNanos(1));
+            assertThat(System.nanoTime() - before).as(strategy.name()).isLessThan(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+    }
+
+    @Test
+    public void interrupted()
+    {
+        for (final WaitStrategy strategy : WaitStrategy.values())
+        {
+            Thread.currentThread().interrupt();
+            assertThatThrownBy(() -> strategy.await(TimeUnit.SECONDS.toNanos(1)))
+                    .as(strategy.name())
+                    .isInstanceOf(InterruptedException.class);
+            assertThat(Thread.currentThread().isInterrupted()).isFalse();
+        }
+    }
+
+    @Test
+    public void meterDefault()
+    {
+        assertThat(new TestingMeter().getWaitStrategy()).isEqualTo(WaitStrategy.PARK);
+    }
+
+    @Test
+    public void meterHoldsWithStrategy() throws InterruptedException
+    {
+        final long delay = TimeUnit.MILLISECONDS.toNanos(2);
+        final Meter meter = new TestingMeter()
+        {
+            @Override
+            protected long getDelayNanosFor(final long eventCount)
+            {
+                return delay;
+            }
+        };
+        meter.setWaitStrategy(WaitStrategy.BUSY_SPIN);
+        assertThat(meter.getWaitStrategy()).isEqualTo(WaitStrategy.BUSY_SPIN);
+
+        final long before = System.nanoTime();
+        meter.delay(1);
+        assertThat(System.nanoTime() - before).isGreaterThanOrEqualTo(delay);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void meterRequiresStrategy()
+    {
+        new TestingMeter().setWaitStrategy(null);
+    }
+}
@@ -0,0 +1,169 @@
+/*==============================================================================
+ =
+ = Copyright 2018: darkware.org
+ =
+ =    Licensed under the Apache License, Version 2.0 (the "License");
+ =    you may not use this file except in compliance with the License.
+ =    You may obtain a copy of the License at
+ =
+ =        http://www.apache.org/licenses/LICENSE-2.0
+ =
+ =    Unless required by applicable law or agreed to in writing, software
+ =    distributed under the License is distributed on an "AS IS" BASIS,
+ =    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ =    See the License for the specific language governing permissions and
+ =    limitations under the License.
+ =
+ =============================================================================*/
+
+package io.zeropointx.turnstile;
+
+import io.zeropointx.time.ManualTimeProvider;
+import org.assertj.core.data.Offset;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author jeff@darkware.org
+ * @since 2026-10-17
+ */
+public class WarmingMeterTests
+{
+    private ManualTimeProvider clock;
+
+    @Before
+    public void setup()
+    {
+        this.clock = new ManualTimeProvider();
+        this.clock.setSystemTimestamp();
+    }
+
+    private WarmingMeter createMeter(final WarmingMeter.Curve curve)
+    {
+        final WarmingMeter meter = new WarmingMeter(new FlowRate("10/s"), 0.5, Duration.ofSeconds(1), curve,
+                                                    Duration.ofMinutes(1), this.clock);
+        meter.start();
+
+        return meter;
+    }
+
+    @Test
+    public void linear()
+    {
+        final WarmingMeter meter = this.createMeter(WarmingMeter.Curve.LINEAR);
+
+        assertThat(meter.getWarmth()).isEqualTo(0.5);
+        assertThat(meter.claim(1)).isEqualTo(0L);
+        assertThat(meter.getDelayFor(2)).isEqualTo(200L);
+
+        this.clock.adjust(500, TimeUnit.MILLISECONDS);
+        assertThat(meter.getWarmth()).isEqualTo(0.75);
+
+        this.clock.adjust(500, TimeUnit.MILLISECONDS);
+        assertThat(meter.getWarmth()).isEqualTo(1.0);
+        assertThat(meter.claim(2)).isEqualTo(0L);
+        assertThat(meter.getDelayFor(3)).isEqualTo(100L);
+    }
+
+    @Test
+    public void exponential()
+    {
+        final WarmingMeter meter = this.createMeter(WarmingMeter.Curve.EXPONENTIAL);
+
+        assertThat(meter.getWarmth()).isEqualTo(0.5);
+
+        this.clock.adjust(500, TimeUnit.MILLISECONDS);
+        assertThat(meter.getWarmth()).isEqualTo(Math.sqrt(0.5), Offset.offset(0.0001));
+
+        this.clock.adjust(500, TimeUnit.MILLISECONDS);
+        assertThat(meter.getWarmth()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void rampedSpacing()
+    {
+        final WarmingMeter meter = this.createMeter(WarmingMeter.Curve.LINEAR);
+
+        // The first event passes immediately, after which the spacing shrinks
+        assertThat(meter.claim(1)).isEqualTo(0L);
+
+        long previous = Long.MAX_VALUE;
+        long elapsed = 0L;
+        for (int i = 2; i <= 10; i++)
+        {
+            final long delay = meter.claim(i);
+            assertThat(delay).isLessThanOrEqualTo(previous);
+            previous = delay;
+
+            // Let each event pass exactly on schedule
+            this.clock.adjust(delay, TimeUnit.NANOSECONDS);
+            elapsed += delay;
+        }
+
+        assertThat(meter.getDelayFor(11)).isEqualTo(100L);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(elapsed)).isGreaterThan(900L);
+    }
+
+    @Test
+    public void cooldownAfterPause()
+    {
+        final WarmingMeter meter = this.createMeter(WarmingMeter.Curve.LINEAR);
+
+        this.clock.adjust(2, TimeUnit.SECONDS);
+        assertThat(meter.getWarmth()).isEqualTo(1.0);
+
+        meter.pause();
+        this.clock.adjust(10, TimeUnit.SECONDS);
+        meter.start();
+        assertThat(meter.getWarmth()).isEqualTo(1.0);
+
+        meter.pause();
+        this.clock.adjust(2, TimeUnit.MINUTES);
+        meter.start();
+        assertThat(meter.getWarmth()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void cooldownAfterIdle()
+    {
+        final WarmingMeter meter = this.createMeter(WarmingMeter.Curve.LINEAR);
+
+        meter.claim(1);
+        this.clock.adjust(2, TimeUnit.MINUTES);
+        meter.claim(2);
+
+        assertThat(meter.getWarmth()).isEqualTo(0.5);
+        assertThat(meter.getDelayFor(3)).isEqualTo(200L);
+    }
+
+    @Test
+    public void resetIsCold()
+    {
+        final WarmingMeter meter = this.createMeter(WarmingMeter.Curve.LINEAR);
+        this.clock.adjust(2, TimeUnit.SECONDS);
+
+        meter.reset();
+        meter.start();
+
+        assertThat(meter.getWarmth()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void setRate()
+    {
+        final WarmingMeter meter = new WarmingMeter(new FlowRate("10/s"), 1.0, Duration.ZERO, WarmingMeter.Curve.LINEAR,
+                                                    Duration.ofMinutes(1), this.clock);
+        meter.start();
+
+        assertThat(meter.claim(1)).isEqualTo(0L);
+        meter.setRate(new FlowRate("1/s"));
+
+        assertThat(meter.getFlowRate()).hasValue(new FlowRate("1/s"));
+        assertThat(meter.claim(2)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+}